@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.text.NumberText;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+/**
+ * Device benchmark of the overlay labels for one frame, with 1 to 20 faces: four labels per face
+ * blitted from a {@link GlyphAtlas} against the {@code drawText} path FaceGraphic used before.
+ * Both draw into a software canvas, like the canvas TextureGraphicOverlay locks.  Results are
+ * logged under the {@value #TAG} tag:
+ *
+ * <pre>
+ *   ./gradlew :app:connectedAndroidTest
+ *   adb logcat -s GlyphAtlasBenchmark
+ * </pre>
+ */
+@RunWith(AndroidJUnit4.class)
+public class GlyphAtlasDrawBenchmark {
+    private static final String TAG = "GlyphAtlasBenchmark";
+    private static final int[] FACE_COUNTS = {1, 5, 10, 20};
+    private static final int WARMUP_FRAMES = 200;
+    private static final int FRAMES = 1000;
+
+    // Same text size, labels and offsets as FaceGraphic.
+    private static final float TEXT_SIZE = 40.0f;
+    private static final String[] LABELS = {"id: ", "happiness: ", "right eye: ", "left eye: "};
+    private static final float X_OFFSET = -50.0f;
+    private static final float Y_OFFSET = 50.0f;
+
+    private final Canvas mCanvas =
+            new Canvas(Bitmap.createBitmap(720, 960, Bitmap.Config.ARGB_8888));
+    private final GlyphAtlas mAtlas = GlyphAtlas.get(Color.YELLOW, TEXT_SIZE, LABELS);
+    private final Paint mPaint = new Paint();
+    private final char[] mText = new char[NumberText.MAX_FIXED2_LENGTH];
+
+    private final float[] mX = new float[20];
+    private final float[] mY = new float[20];
+    private final float[] mSmiling = new float[20];
+    private final float[] mRightEyeOpen = new float[20];
+    private final float[] mLeftEyeOpen = new float[20];
+
+    public GlyphAtlasDrawBenchmark() {
+        mPaint.setColor(Color.YELLOW);
+        mPaint.setTextSize(TEXT_SIZE);
+        Random random = new Random(42);
+        for (int i = 0; i < mX.length; i++) {
+            mX[i] = 100.0f + random.nextFloat() * 520.0f;
+            mY[i] = 100.0f + random.nextFloat() * 760.0f;
+            mSmiling[i] = random.nextFloat();
+            mRightEyeOpen[i] = random.nextFloat();
+            mLeftEyeOpen[i] = random.nextFloat();
+        }
+    }
+
+    @Test
+    public void atlasVersusDrawText() {
+        for (int faces : FACE_COUNTS) {
+            long atlasNanos = measure(faces, true);
+            long drawTextNanos = measure(faces, false);
+            Log.i(TAG, "faces: " + faces + " atlas: " + atlasNanos / 1000 + "us drawText: "
+                    + drawTextNanos / 1000 + "us per frame");
+        }
+    }
+
+    /**
+     * Returns the mean time to draw the labels of {@code faces} faces once.
+     */
+    private long measure(int faces, boolean atlas) {
+        for (int frame = 0; frame < WARMUP_FRAMES; frame++) {
+            drawFrame(faces, frame, atlas);
+        }
+        long start = System.nanoTime();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            drawFrame(faces, frame, atlas);
+        }
+        return (System.nanoTime() - start) / FRAMES;
+    }
+
+    private void drawFrame(int faces, int frame, boolean atlas) {
+        mCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        for (int i = 0; i < faces; i++) {
+            // Values change from frame to frame, as detections do.
+            float smiling = (mSmiling[i] + frame * 0.01f) % 1.0f;
+            if (atlas) {
+                drawAtlasLabels(i, smiling);
+            } else {
+                drawTextLabels(i, smiling);
+            }
+        }
+    }
+
+    private void drawAtlasLabels(int i, float smiling) {
+        float x = mX[i];
+        float y = mY[i];
+        float textX = mAtlas.drawLabel(mCanvas, 0, x + X_OFFSET, y + Y_OFFSET);
+        int length = NumberText.formatInt(i, mText, 0);
+        mAtlas.drawChars(mCanvas, mText, 0, length, textX, y + Y_OFFSET);
+
+        textX = mAtlas.drawLabel(mCanvas, 1, x - X_OFFSET, y - Y_OFFSET);
+        length = NumberText.formatFixed2(smiling, mText, 0);
+        mAtlas.drawChars(mCanvas, mText, 0, length, textX, y - Y_OFFSET);
+
+        textX = mAtlas.drawLabel(mCanvas, 2, x + X_OFFSET * 2, y + Y_OFFSET * 2);
+        length = NumberText.formatFixed2(mRightEyeOpen[i], mText, 0);
+        mAtlas.drawChars(mCanvas, mText, 0, length, textX, y + Y_OFFSET * 2);
+
+        textX = mAtlas.drawLabel(mCanvas, 3, x - X_OFFSET * 2, y - Y_OFFSET * 2);
+        length = NumberText.formatFixed2(mLeftEyeOpen[i], mText, 0);
+        mAtlas.drawChars(mCanvas, mText, 0, length, textX, y - Y_OFFSET * 2);
+    }
+
+    private void drawTextLabels(int i, float smiling) {
+        float x = mX[i];
+        float y = mY[i];
+        mCanvas.drawText("id: " + i, x + X_OFFSET, y + Y_OFFSET, mPaint);
+        mCanvas.drawText("happiness: " + String.format("%.2f", smiling),
+                x - X_OFFSET, y - Y_OFFSET, mPaint);
+        mCanvas.drawText("right eye: " + String.format("%.2f", mRightEyeOpen[i]),
+                x + X_OFFSET * 2, y + Y_OFFSET * 2, mPaint);
+        mCanvas.drawText("left eye: " + String.format("%.2f", mLeftEyeOpen[i]),
+                x - X_OFFSET * 2, y - Y_OFFSET * 2, mPaint);
+    }
+}
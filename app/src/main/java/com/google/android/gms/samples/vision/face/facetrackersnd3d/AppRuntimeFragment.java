@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.support.v4.app.Fragment;
+import android.support.v4.app.FragmentActivity;
+import android.support.v4.app.FragmentManager;
+import android.util.Log;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.analytics.BinaryAnalyticsStore;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.analytics.SessionAnalytics;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.AudioEngine;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CrowdCuePlayer;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CueRateLimiter;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.FaceCueMapper;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.lifecycle.AudioRuntime;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.lifecycle.ResourceTracker;
+import com.google.vr.sdk.audio.GvrAudioEngine;
+
+import java.io.File;
+
+/**
+ * Headless fragment owning what must outlive the activity across configuration changes: the
+ * {@link AudioRuntime} with the audio engine, the audio thread and the state shared by the cues,
+ * the head rotation sensor and the session analytics writer.  It is retained, so a recreated
+ * activity gets the same instance back instead of starting new threads and engines.<p>
+ *
+ * The audio thread is paused and the engine and sensor stopped while the activity is paused.
+ * Everything is shut down in {@link #onDestroy()}, which for a retained fragment only runs when
+ * the activity finishes for good.  Threads and engines are counted in the default
+ * {@link ResourceTracker}, and the counts are logged on shutdown, so leaks can be spotted.
+ */
+public class AppRuntimeFragment extends Fragment {
+    private static final String TAG = "AppRuntime";
+    private static final String FRAGMENT_TAG = "AppRuntime";
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 1000;
+
+    // Per-session statistics, written to the app files by a background thread.
+    private static final String ANALYTICS_DIRECTORY = "analytics";
+    private static final long ANALYTICS_BATCH_INTERVAL_MILLIS = 60 * 1000;
+
+    private GvrEngineHost mEngineHost;
+    private AudioRuntime mAudioRuntime;
+    private HeadRotationSensor mHeadRotationSensor;
+    private SessionAnalytics mAnalytics;
+
+    /**
+     * Returns the runtime of the activity, creating it on the first call.  Call from
+     * {@code onCreate}, after {@code super.onCreate}.
+     */
+    static AppRuntimeFragment attach(FragmentActivity activity) {
+        FragmentManager fragmentManager = activity.getSupportFragmentManager();
+        AppRuntimeFragment runtime =
+                (AppRuntimeFragment) fragmentManager.findFragmentByTag(FRAGMENT_TAG);
+        if (runtime == null) {
+            runtime = new AppRuntimeFragment();
+            fragmentManager.beginTransaction().add(runtime, FRAGMENT_TAG).commitNow();
+        }
+        return runtime;
+    }
+
+    /**
+     * Creates the engine and starts the workers, once per activity launch.
+     */
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setRetainInstance(true);
+
+        // The application context: the runtime outlives the activity that created it.
+        Context context = getActivity().getApplicationContext();
+        mHeadRotationSensor = new HeadRotationSensor(context);
+
+        long sessionStart = System.currentTimeMillis();
+        File analyticsFile = new File(new File(context.getFilesDir(), ANALYTICS_DIRECTORY),
+                "session-" + sessionStart + ".bin");
+        mAnalytics = new SessionAnalytics(new BinaryAnalyticsStore(analyticsFile),
+                ANALYTICS_BATCH_INTERVAL_MILLIS, sessionStart);
+        mAnalytics.start();
+
+        mEngineHost = new GvrEngineHost(context);
+        mAudioRuntime = new AudioRuntime(mEngineHost, mHeadRotationSensor.getFusion(),
+                FaceTrackerActivity.OBJECT_SOUND_FILE, FaceTrackerActivity.CROWD_CELL_FACE_WIDTHS,
+                ResourceTracker.getDefault());
+        mAudioRuntime.start();
+        Log.d(TAG, "Started, " + ResourceTracker.getDefault());
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        mAudioRuntime.resume();
+        mHeadRotationSensor.start();
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        mAudioRuntime.pause();
+        mHeadRotationSensor.stop();
+        mAnalytics.flush(System.currentTimeMillis());
+    }
+
+    /**
+     * Stops the sounds, the workers and the engine.  Not called on configuration changes.
+     */
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        mHeadRotationSensor.stop();
+        if (!mAudioRuntime.shutdown(SHUTDOWN_TIMEOUT_MILLIS)) {
+            Log.w(TAG, "Audio thread did not stop in time, engine not released.");
+        }
+
+        if (!mAnalytics.close(SHUTDOWN_TIMEOUT_MILLIS)) {
+            Log.w(TAG, "Session analytics not written in time.");
+        }
+        if (mAnalytics.getLastError() != null) {
+            Log.e(TAG, "Failed to write session analytics.", mAnalytics.getLastError());
+        }
+        // The sensor thread quits asynchronously, so it may still be counted here.
+        Log.d(TAG, "Stopped, " + ResourceTracker.getDefault());
+    }
+
+    GvrAudioEngineAdapter getAudioEngine() {
+        return mEngineHost.getAdapter();
+    }
+
+    CrowdCuePlayer getCrowdCuePlayer() {
+        return mAudioRuntime.getCrowdCuePlayer();
+    }
+
+    CueRateLimiter getCueRateLimiter() {
+        return mAudioRuntime.getCueRateLimiter();
+    }
+
+    FaceCueMapper getCueMapper() {
+        return mAudioRuntime.getCueMapper();
+    }
+
+    SessionAnalytics getAnalytics() {
+        return mAnalytics;
+    }
+
+    /**
+     * Creates the GVR audio engine for the {@link AudioRuntime}, and releases it: the engine has
+     * no explicit release, so its sounds are stopped, its sound file unloaded and the last
+     * reference dropped, which lets it be finalized.
+     */
+    private static final class GvrEngineHost implements AudioRuntime.EngineHost {
+        private final Context mContext;
+        private GvrAudioEngineAdapter mAdapter;
+
+        GvrEngineHost(Context context) {
+            mContext = context;
+        }
+
+        GvrAudioEngineAdapter getAdapter() {
+            return mAdapter;
+        }
+
+        @Override
+        public AudioEngine createEngine() {
+            // Initialize 3D audio engine.
+            mAdapter = new GvrAudioEngineAdapter(new GvrAudioEngine(mContext,
+                    GvrAudioEngine.RenderingMode.BINAURAL_HIGH_QUALITY));
+            return mAdapter;
+        }
+
+        @Override
+        public boolean needsUpdate() {
+            return mAdapter.isSoundPlaying(mAdapter.getLastSourceId());
+        }
+
+        @Override
+        public void onPreloadFailed(String soundFile) {
+            Log.e(TAG, "Failed to preload sound file " + soundFile + " !");
+        }
+
+        @Override
+        public void releaseEngine() {
+            mAdapter.stopAllSounds();
+            mAdapter.unloadSoundFile(FaceTrackerActivity.OBJECT_SOUND_FILE);
+            mAdapter.pause();
+            mAdapter = null;
+        }
+    }
+}
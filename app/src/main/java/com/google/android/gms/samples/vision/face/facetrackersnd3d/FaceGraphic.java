@@ -19,9 +19,11 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.text.NumberText;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera.GlyphAtlas;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera.GraphicHost;
 import com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera.GraphicOverlay;
 import com.google.android.gms.vision.face.Face;
-import com.google.vr.sdk.audio.GvrAudioEngine;
 
 /**
  * Graphic instance for rendering face position, orientation, and landmarks within an associated
@@ -34,6 +36,15 @@ class FaceGraphic extends GraphicOverlay.Graphic {
     private static final float ID_X_OFFSET = -50.0f;
     private static final float BOX_STROKE_WIDTH = 5.0f;
 
+    // Labels are blitted from a glyph atlas rather than laid out with drawText every frame.
+    // Set to false to compare against the drawText path.
+    private static final boolean USE_GLYPH_ATLAS = true;
+    private static final String[] LABELS = {"id: ", "happiness: ", "right eye: ", "left eye: "};
+    private static final int LABEL_ID = 0;
+    private static final int LABEL_HAPPINESS = 1;
+    private static final int LABEL_RIGHT_EYE = 2;
+    private static final int LABEL_LEFT_EYE = 3;
+
     private static final int COLOR_CHOICES[] = {
         Color.BLUE,
         Color.CYAN,
@@ -48,22 +59,15 @@ class FaceGraphic extends GraphicOverlay.Graphic {
     private Paint mFacePositionPaint;
     private Paint mIdPaint;
     private Paint mBoxPaint;
+    private GlyphAtlas mAtlas;
+    private final char[] mText = new char[NumberText.MAX_FIXED2_LENGTH];
 
     private volatile Face mFace;
     private int mFaceId;
 
-    public int getSourceId() {
-        return sourceId;
-    }
-
-    public void setSourceId(int sourceId) {
-        this.sourceId = sourceId;
-    }
-
-    private int sourceId = GvrAudioEngine.INVALID_ID;
     private float mFaceHappiness;
 
-    FaceGraphic(GraphicOverlay overlay) {
+    FaceGraphic(GraphicHost overlay) {
         super(overlay);
 
         mCurrentColorIndex = (mCurrentColorIndex + 1) % COLOR_CHOICES.length;
@@ -76,6 +80,10 @@ class FaceGraphic extends GraphicOverlay.Graphic {
         mIdPaint.setColor(selectedColor);
         mIdPaint.setTextSize(ID_TEXT_SIZE);
 
+        if (USE_GLYPH_ATLAS) {
+            mAtlas = GlyphAtlas.get(selectedColor, ID_TEXT_SIZE, LABELS);
+        }
+
         mBoxPaint = new Paint();
         mBoxPaint.setColor(selectedColor);
         mBoxPaint.setStyle(Paint.Style.STROKE);
@@ -110,10 +118,14 @@ class FaceGraphic extends GraphicOverlay.Graphic {
         float x = translateX(face.getPosition().x + face.getWidth() / 2);
         float y = translateY(face.getPosition().y + face.getHeight() / 2);
         canvas.drawCircle(x, y, FACE_POSITION_RADIUS, mFacePositionPaint);
-        canvas.drawText("id: " + mFaceId, x + ID_X_OFFSET, y + ID_Y_OFFSET, mIdPaint);
-        canvas.drawText("happiness: " + String.format("%.2f", face.getIsSmilingProbability()), x - ID_X_OFFSET, y - ID_Y_OFFSET, mIdPaint);
-        canvas.drawText("right eye: " + String.format("%.2f", face.getIsRightEyeOpenProbability()), x + ID_X_OFFSET * 2, y + ID_Y_OFFSET * 2, mIdPaint);
-        canvas.drawText("left eye: " + String.format("%.2f", face.getIsLeftEyeOpenProbability()), x - ID_X_OFFSET*2, y - ID_Y_OFFSET*2, mIdPaint);
+        if (mAtlas != null) {
+            drawAtlasText(canvas, face, x, y);
+        } else {
+            canvas.drawText("id: " + mFaceId, x + ID_X_OFFSET, y + ID_Y_OFFSET, mIdPaint);
+            canvas.drawText("happiness: " + String.format("%.2f", face.getIsSmilingProbability()), x - ID_X_OFFSET, y - ID_Y_OFFSET, mIdPaint);
+            canvas.drawText("right eye: " + String.format("%.2f", face.getIsRightEyeOpenProbability()), x + ID_X_OFFSET * 2, y + ID_Y_OFFSET * 2, mIdPaint);
+            canvas.drawText("left eye: " + String.format("%.2f", face.getIsLeftEyeOpenProbability()), x - ID_X_OFFSET*2, y - ID_Y_OFFSET*2, mIdPaint);
+        }
 
         // Draws a bounding box around the face.
         float xOffset = scaleX(face.getWidth() / 2.0f);
@@ -124,4 +136,26 @@ class FaceGraphic extends GraphicOverlay.Graphic {
         float bottom = y + yOffset;
         canvas.drawRect(left, top, right, bottom, mBoxPaint);
     }
+
+    /**
+     * Draws the id and classification labels by composing glyph atlas regions, at the same
+     * positions as the drawText path.
+     */
+    private void drawAtlasText(Canvas canvas, Face face, float x, float y) {
+        float textX = mAtlas.drawLabel(canvas, LABEL_ID, x + ID_X_OFFSET, y + ID_Y_OFFSET);
+        int length = NumberText.formatInt(mFaceId, mText, 0);
+        mAtlas.drawChars(canvas, mText, 0, length, textX, y + ID_Y_OFFSET);
+
+        textX = mAtlas.drawLabel(canvas, LABEL_HAPPINESS, x - ID_X_OFFSET, y - ID_Y_OFFSET);
+        length = NumberText.formatFixed2(face.getIsSmilingProbability(), mText, 0);
+        mAtlas.drawChars(canvas, mText, 0, length, textX, y - ID_Y_OFFSET);
+
+        textX = mAtlas.drawLabel(canvas, LABEL_RIGHT_EYE, x + ID_X_OFFSET * 2, y + ID_Y_OFFSET * 2);
+        length = NumberText.formatFixed2(face.getIsRightEyeOpenProbability(), mText, 0);
+        mAtlas.drawChars(canvas, mText, 0, length, textX, y + ID_Y_OFFSET * 2);
+
+        textX = mAtlas.drawLabel(canvas, LABEL_LEFT_EYE, x - ID_X_OFFSET * 2, y - ID_Y_OFFSET * 2);
+        length = NumberText.formatFixed2(face.getIsLeftEyeOpenProbability(), mText, 0);
+        mAtlas.drawChars(canvas, mText, 0, length, textX, y - ID_Y_OFFSET * 2);
+    }
 }
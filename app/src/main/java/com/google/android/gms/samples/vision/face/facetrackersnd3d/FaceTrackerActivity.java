@@ -31,20 +31,38 @@ import android.support.design.widget.Snackbar;
 import android.support.v4.app.ActivityCompat;
 import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
+import android.util.SparseArray;
 import android.view.View;
 import android.widget.Button;
 import android.widget.Toast;
 
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.GoogleApiAvailability;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.analytics.SessionAnalytics;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.AudioEngine;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CueChangeDetector;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CueRateLimiter;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.FaceCueMapper;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics.AppMetrics;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics.MetricsRegistry;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking.CrowdMode;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking.FaceCueTracker;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking.FaceFrame;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking.FaceObservation;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking.LostTrackCache;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera.CameraFrameSource;
 import com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera.CameraSourcePreview;
-import com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera.GraphicOverlay;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera.DetectingCameraSource;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera.GraphicHost;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera.PerformanceHud;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera.PlayServicesPreviewSource;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera.PreviewSource;
 import com.google.android.gms.vision.CameraSource;
+import com.google.android.gms.vision.Frame;
 import com.google.android.gms.vision.MultiProcessor;
 import com.google.android.gms.vision.Tracker;
 import com.google.android.gms.vision.face.Face;
 import com.google.android.gms.vision.face.FaceDetector;
-import com.google.vr.sdk.audio.GvrAudioEngine;
 
 import java.io.IOException;
 
@@ -55,10 +73,23 @@ import java.io.IOException;
 public final class FaceTrackerActivity extends AppCompatActivity {
     private static final String TAG = "FaceTracker";
 
-    private CameraSource mCameraSource = null;
+    private PreviewSource mCameraSource = null;
+    // Frames come from our own camera frame source with pooled buffers.  Set to false to use the
+    // Play Services CameraSource instead.
+    private static final boolean USE_FRAME_SOURCE = true;
+    // Scan regions around the known faces instead of every full frame.
+    private static final boolean USE_ROI_DETECTION = true;
+    // Play grouped cues for clusters of faces once the scene gets busy.  Set to false to keep
+    // one cue per face however many faces are in view.
+    private static final boolean USE_CROWD_MODE = true;
+    // Draw the overlay on its own render thread, with the main_texture layout, instead of on the
+    // UI thread.
+    private static final boolean USE_TEXTURE_OVERLAY = false;
+    private MeteredFaceDetector mDetector;
 
     private CameraSourcePreview mPreview;
-    private GraphicOverlay mGraphicOverlay;
+    // A TextureGraphicOverlay with USE_TEXTURE_OVERLAY, a GraphicOverlay otherwise.
+    private GraphicHost mGraphicOverlay;
 
     private static final int RC_HANDLE_GMS = 9001;
     // permission request codes need to be < 256
@@ -69,21 +100,50 @@ public final class FaceTrackerActivity extends AppCompatActivity {
     //Spacial sound
     //private static final String OBJECT_SOUND_FILE = "1942.wav";
     //private static final String OBJECT_SOUND_FILE = "success.wav";
-    private static final String OBJECT_SOUND_FILE = "2041.wav";
-    private GvrAudioEngine gvrAudioEngine = null;
-    private volatile int sourceId = GvrAudioEngine.INVALID_ID;
-    private long lastSound = System.currentTimeMillis();
+    static final String OBJECT_SOUND_FILE = "2041.wav";
+    // Length of the sound file, rounded up.
+    private static final long OBJECT_SOUND_MILLIS = 100;
+
+    // Taken in onCreate from the AppRuntimeFragment, which owns the audio engine, the cue state
+    // and the worker threads across configuration changes.
+    private GvrAudioEngineAdapter mAudioEngine;
+    private CueRateLimiter mCueRateLimiter;
+    private FaceCueMapper mCueMapper;
 
     private Vibrator vibrator;
 
-    // Nexus 4
-    private final float facePosMinX = -126.7699f;
-    private final float facePosMinY = -100.79914f;
-    private final float facePosMaxX = 394.55118f;
-    private final float facePosMaxY = 528.54156f;
-    private final float faceWidthMax = 470.39392f;
-    private final float facePosMoyX = (Math.abs(facePosMaxX) + Math.abs(facePosMinX)) / 2.0f;
-    private final float facePosMoyY = (Math.abs(facePosMaxY) + Math.abs(facePosMinY)) / 2.0f;
+    // Crowd mode: grouped cues for clusters of faces, fed once per frame from the trackers.
+    // Null when disabled.
+    static final float CROWD_CELL_FACE_WIDTHS = 1.0f;
+    private CrowdMode mCrowdMode;
+    private int mCrowdFrameId = -1;
+    private final FaceFrame mCrowdFrame = new FaceFrame();
+
+    // Trackers of faces lost in the last moments, taken back when the same face shows up again
+    // so that it keeps its id, graphic and sound.  Used on the detector thread, and on the UI
+    // thread only while the camera source is stopped.  Expired tracks are dropped at the start of
+    // every frame, so that they go even when no face is in view, and when the activity pauses.
+    private static final int LOST_TRACK_CAPACITY = 16;
+    private static final long LOST_TRACK_MAX_AGE_MILLIS = 1500;
+    private static final float LOST_TRACK_CELL_SIZE = 160.0f;
+    private final LostTrackCache<GraphicFaceTracker> mLostTracks =
+            new LostTrackCache<>(LOST_TRACK_CAPACITY, LOST_TRACK_MAX_AGE_MILLIS,
+                    LOST_TRACK_CELL_SIZE,
+                    new LostTrackCache.EvictionListener<GraphicFaceTracker>() {
+                        @Override
+                        public void onEvicted(GraphicFaceTracker tracker) {
+                            tracker.release();
+                        }
+                    });
+    private final FaceObservation mFactoryObservation = new FaceObservation();
+
+    // Performance HUD for field testing, toggled by a long press on the preview.  Metrics are
+    // only recorded while it is shown.
+    private boolean mHudEnabled;
+    private PerformanceHud mHud;
+
+    // Per-session statistics, written to the app files by a background thread.
+    private SessionAnalytics mAnalytics;
 
     //==============================================================================================
     // Activity Methods
@@ -96,50 +156,33 @@ public final class FaceTrackerActivity extends AppCompatActivity {
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setRequestedOrientation(ActivityInfo.SCREEN_ORIENTATION_PORTRAIT);
-        setContentView(R.layout.main);
+        setContentView(USE_TEXTURE_OVERLAY ? R.layout.main_texture : R.layout.main);
 
         // Init UI
         mPreview = (CameraSourcePreview) findViewById(R.id.preview);
-        mGraphicOverlay = (GraphicOverlay) findViewById(R.id.faceOverlay);
+        mGraphicOverlay = (GraphicHost) findViewById(R.id.faceOverlay);
 
         final Button button = (Button) findViewById(R.id.flipButton);
         button.setOnClickListener(mFlipButtonListener);
+        mPreview.setOnLongClickListener(mHudToggleListener);
 
         if (savedInstanceState != null) {
             mIsFrontFacing = savedInstanceState.getBoolean("IsFrontFacing");
+            mHudEnabled = savedInstanceState.getBoolean("HudEnabled");
         }
+        applyHud();
 
         vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
 
-        // Initialize 3D audio engine.
-        gvrAudioEngine = new GvrAudioEngine(this, GvrAudioEngine.RenderingMode.BINAURAL_HIGH_QUALITY);
-        if(gvrAudioEngine != null) {
-            // Avoid any delays during start-up due to decoding of sound files.
-            new Thread(
-                    new Runnable() {
-                        @Override
-                        public void run() {
-                            // Start spatial audio playback of OBJECT_SOUND_FILE at the model position. The
-                            // returned sourceId handle is stored and allows for repositioning the sound object
-                            // whenever the cube position changes.
-                            if(gvrAudioEngine.preloadSoundFile(OBJECT_SOUND_FILE)) {
-                                Log.e(TAG, "Failed to preload sound file !");
-                            }
-
-                            while(true) {
-                                if(gvrAudioEngine != null) {
-                                    if (gvrAudioEngine.isSoundPlaying(sourceId)) {
-                                        // Regular update call to GVR audio engine.
-                                        gvrAudioEngine.update();
-                                    }
-                                }
-                            }
-                        }
-                    })
-                    .start();
-        } else {
-            Log.e(TAG, "Failed to start GvrAudioEngine !");
+        // Created on the first launch, handed back as is after a configuration change.
+        AppRuntimeFragment runtime = AppRuntimeFragment.attach(this);
+        mAudioEngine = runtime.getAudioEngine();
+        mCueRateLimiter = runtime.getCueRateLimiter();
+        mCueMapper = runtime.getCueMapper();
+        if (USE_CROWD_MODE) {
+            mCrowdMode = new CrowdMode(runtime.getCrowdCuePlayer());
         }
+        mAnalytics = runtime.getAnalytics();
 
         // Check for the camera permission before accessing the camera.  If the
         // permission is not granted yet, request permission.
@@ -177,7 +220,7 @@ public final class FaceTrackerActivity extends AppCompatActivity {
             }
         };
 
-        Snackbar.make(mGraphicOverlay, R.string.permission_camera_rationale,
+        Snackbar.make(mPreview, R.string.permission_camera_rationale,
                 Snackbar.LENGTH_INDEFINITE)
                 .setAction(R.string.ok, listener)
                 .show();
@@ -191,9 +234,21 @@ public final class FaceTrackerActivity extends AppCompatActivity {
     private void createCameraSource() {
 
         Context context = getApplicationContext();
-        FaceDetector detector = new FaceDetector.Builder(context)
+        FaceDetector faceDetector = new FaceDetector.Builder(context)
                 .setClassificationType(FaceDetector.ALL_CLASSIFICATIONS)
+                // Region scans move the image origin between frames, which the detector's own
+                // tracking cannot follow: the ROI detector assigns the ids instead.
+                .setTrackingEnabled(!USE_ROI_DETECTION)
                 .build();
+        MeteredFaceDetector detector = new MeteredFaceDetector(USE_ROI_DETECTION
+                ? new RoiFaceDetector(faceDetector) : faceDetector);
+        mDetector = detector;
+        detector.setFrameCallback(new Runnable() {
+            @Override
+            public void run() {
+                mLostTracks.evictExpired(System.currentTimeMillis());
+            }
+        });
 
         detector.setProcessor(
                 new MultiProcessor.Builder<>(new GraphicFaceTrackerFactory())
@@ -227,12 +282,22 @@ public final class FaceTrackerActivity extends AppCompatActivity {
             facing = CameraSource.CAMERA_FACING_BACK;
         }
 
-        mCameraSource = new CameraSource.Builder(context, detector)
-                .setRequestedPreviewSize(640, 480)
-                .setFacing(facing)
-                .setRequestedFps(30.0f)
-                .setAutoFocusEnabled(true)
-                .build();
+        if (USE_FRAME_SOURCE) {
+            CameraFrameSource frameSource = new CameraFrameSource.Builder(context)
+                    .setRequestedPreviewSize(640, 480)
+                    .setFacing(facing)
+                    .setRequestedFps(30.0f)
+                    .setAutoFocusEnabled(true)
+                    .build();
+            mCameraSource = new DetectingCameraSource(frameSource, detector);
+        } else {
+            mCameraSource = new PlayServicesPreviewSource(new CameraSource.Builder(context, detector)
+                    .setRequestedPreviewSize(640, 480)
+                    .setFacing(facing)
+                    .setRequestedFps(30.0f)
+                    .setAutoFocusEnabled(true)
+                    .build());
+        }
     }
 
     /**
@@ -241,30 +306,35 @@ public final class FaceTrackerActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
-        gvrAudioEngine.resume();
         startCameraSource();
     }
 
     /**
-     * Stops the camera.
+     * Stops the camera, then drops the lost tracks that have expired.  Stopping waits for the
+     * detector thread, which no longer uses the cache until the camera restarts.
      */
     @Override
     protected void onPause() {
         super.onPause();
-        gvrAudioEngine.pause();
         mPreview.stop();
+        mLostTracks.evictExpired(System.currentTimeMillis());
     }
 
     /**
      * Releases the resources associated with the camera source, the associated detector, and the
-     * rest of the processing pipeline.
+     * rest of the processing pipeline.  The camera goes first, so that no tracker uses the audio
+     * engine once the runtime shuts it down, unless the activity is only being recreated.
+     * Releasing the camera source also stops the detector thread and releases the detector,
+     * whose processor hands its remaining trackers to the lost track cache: only then may the
+     * cache be cleared from this thread.
      */
     @Override
     protected void onDestroy() {
-        super.onDestroy();
         if (mCameraSource != null) {
             mCameraSource.release();
         }
+        mLostTracks.clear();
+        super.onDestroy();
     }
 
     /**
@@ -325,6 +395,30 @@ public final class FaceTrackerActivity extends AppCompatActivity {
     public void onSaveInstanceState(Bundle savedInstanceState) {
         super.onSaveInstanceState(savedInstanceState);
         savedInstanceState.putBoolean("IsFrontFacing", mIsFrontFacing);
+        savedInstanceState.putBoolean("HudEnabled", mHudEnabled);
+    }
+
+    /**
+     * Shows or hides the performance HUD.
+     */
+    private View.OnLongClickListener mHudToggleListener = new View.OnLongClickListener() {
+        @Override
+        public boolean onLongClick(View v) {
+            mHudEnabled = !mHudEnabled;
+            applyHud();
+            return true;
+        }
+    };
+
+    /**
+     * Turns metrics recording and the HUD on the overlay on or off, as last toggled.
+     */
+    private void applyHud() {
+        MetricsRegistry.getDefault().setEnabled(mHudEnabled);
+        if (mHudEnabled && mHud == null) {
+            mHud = new PerformanceHud();
+        }
+        mGraphicOverlay.setHud(mHudEnabled ? mHud : null);
     }
 
     /**
@@ -375,32 +469,105 @@ public final class FaceTrackerActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Per-frame work: samples the audio metrics and feeds the faces of the frame to crowd mode.
+     * The multiprocessor has no per-frame callback, so every tracker calls this from
+     * onUpdate/onMissing and only the first call of a frame does the work.  Called on the
+     * detector thread.
+     */
+    private void onFrame(FaceDetector.Detections<Face> detectionResults) {
+        Frame.Metadata metadata = detectionResults.getFrameMetadata();
+        if (metadata.getId() == mCrowdFrameId) {
+            return;
+        }
+        mCrowdFrameId = metadata.getId();
+        if (mAudioEngine != null && MetricsRegistry.getDefault().isEnabled()) {
+            AppMetrics.AUDIO_SOUND_OBJECTS.set(mAudioEngine.countPlayingSoundObjects());
+        }
+        if (mCrowdMode == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        SparseArray<Face> faces = detectionResults.getDetectedItems();
+        mCrowdFrame.reset(now);
+        for (int i = 0; i < faces.size(); i++) {
+            toObservation(faces.valueAt(i), mCrowdFrame.add());
+        }
+
+        // Face coordinates are in the upright frame.
+        int rotation = metadata.getRotation();
+        if (rotation == Frame.ROTATION_90 || rotation == Frame.ROTATION_270) {
+            mCrowdMode.onFrame(mCrowdFrame, metadata.getHeight(), metadata.getWidth(), now);
+        } else {
+            mCrowdMode.onFrame(mCrowdFrame, metadata.getWidth(), metadata.getHeight(), now);
+        }
+    }
+
+    /**
+     * Copies the face attributes used by the tracking logic into a reused observation.
+     */
+    private static FaceObservation toObservation(Face face, FaceObservation observation) {
+        observation.id = face.getId();
+        observation.x = face.getPosition().x;
+        observation.y = face.getPosition().y;
+        observation.width = face.getWidth();
+        observation.height = face.getHeight();
+        observation.eulerY = face.getEulerY();
+        observation.eulerZ = face.getEulerZ();
+        observation.smilingProbability = face.getIsSmilingProbability();
+        observation.leftEyeOpenProbability = face.getIsLeftEyeOpenProbability();
+        observation.rightEyeOpenProbability = face.getIsRightEyeOpenProbability();
+        return observation;
+    }
+
     //==============================================================================================
     // Graphic Face Tracker
     //==============================================================================================
 
     /**
      * Factory for creating a face tracker to be associated with a new face.  The multiprocessor
-     * uses this factory to create face trackers as needed -- one for each individual.
+     * uses this factory to create face trackers as needed -- one for each individual.  A face
+     * that matches one lost a moment ago gets the tracker of that face back.
      */
     private class GraphicFaceTrackerFactory implements MultiProcessor.Factory<Face> {
         @Override
         public Tracker<Face> create(Face face) {
-            return new GraphicFaceTracker(mGraphicOverlay);
+            GraphicFaceTracker tracker = mLostTracks.take(
+                    toObservation(face, mFactoryObservation), System.currentTimeMillis());
+            return tracker != null ? tracker : new GraphicFaceTracker(mGraphicOverlay);
         }
     }
 
     /**
      * Face tracker for each detected individual. This maintains a face graphic within the app's
-     * associated face overlay.
+     * associated face overlay, and delegates the audio cues to a {@link FaceCueTracker}.
      */
     private class GraphicFaceTracker extends Tracker<Face> {
-        private GraphicOverlay mOverlay;
+        private GraphicHost mOverlay;
         private FaceGraphic mFaceGraphic;
-
-        GraphicFaceTracker(GraphicOverlay overlay) {
+        private final FaceCueTracker mCueTracker;
+        private final FaceObservation mObservation = new FaceObservation();
+        private int mFaceId;
+        // Whether the graphic is shown, and the overlay generation it was added in, so that the
+        // overlay is only touched when the face appears, disappears or the overlay was cleared.
+        private boolean mVisible;
+        private int mOverlayGeneration;
+        // Set while the tracker waits in the lost track cache.
+        private boolean mLost;
+        // Velocity of the face centre in pixels per millisecond, kept for re-identification.
+        private float mVelocityX;
+        private float mVelocityY;
+        private long mLastUpdateMillis;
+        // Start of the track and time it was lost, for the session analytics.
+        private long mStartMillis;
+        private long mLostMillis;
+
+        GraphicFaceTracker(GraphicHost overlay) {
             mOverlay = overlay;
             mFaceGraphic = new FaceGraphic(overlay);
+            mCueTracker = new FaceCueTracker(mAudioEngine, mCueMapper, mCueRateLimiter,
+                    OBJECT_SOUND_FILE, OBJECT_SOUND_MILLIS, new CueChangeDetector(), mCrowdMode);
         }
 
         /**
@@ -408,29 +575,31 @@ public final class FaceTrackerActivity extends AppCompatActivity {
          */
         @Override
         public void onNewItem(int faceId, Face face) {
+            if (mLost) {
+                // Same face as a recently lost track: keep its id, graphic and sound object.
+                Log.v(TAG, "Face " + faceId + " re-identified as " + mFaceId);
+                mLost = false;
+                mLastUpdateMillis = 0;
+                mAnalytics.onTrackReidentified(System.currentTimeMillis());
+                return;
+            }
+            mStartMillis = System.currentTimeMillis();
+            mAnalytics.onTrackStarted(mStartMillis);
+
             vibrator.vibrate(15);
+            mFaceId = faceId;
             mFaceGraphic.setId(faceId);
+            mOverlayGeneration = mOverlay.getGeneration();
+            mOverlay.add(faceId, mFaceGraphic, false);
 
             // Play sound reflecting face position
-            if(gvrAudioEngine != null) {
-                sourceId = gvrAudioEngine.createSoundObject(OBJECT_SOUND_FILE);
-                if (sourceId == GvrAudioEngine.INVALID_ID) {
-                    Log.e(TAG, "Failed to create sound object !");
-                } else {
-                    Log.v(TAG, "Sound file preloaded and object created !");
-                    mFaceGraphic.setSourceId(sourceId);
-                }
-                gvrAudioEngine.setSoundObjectDistanceRolloffModel(mFaceGraphic.getSourceId(), GvrAudioEngine.DistanceRolloffModel.LINEAR, 50.0f, faceWidthMax);
-                gvrAudioEngine.setHeadPosition(0.0f, 0.0f, 0.0f);
-                gvrAudioEngine.setHeadRotation(0.0f, 0.0f, 0.0f, 0.0f);
-
-                Log.v(TAG, "New face detected: " + faceId + " @ x:" + face.getPosition().x + " y:" + face.getPosition().y + " W:" + face.getWidth());
-                Log.v(TAG, "...... x:" + (face.getPosition().x - (facePosMinX + facePosMoyX)) + " y:" + (face.getPosition().y - (facePosMinY + facePosMoyY)) + " W:" + (face.getWidth() - faceWidthMax));
-                gvrAudioEngine.setSoundObjectPosition(mFaceGraphic.getSourceId(), (face.getPosition().x - (facePosMinX + facePosMoyX)), (face.getWidth() - faceWidthMax), (face.getPosition().y - (facePosMinY + facePosMoyY)));
-                gvrAudioEngine.playSound(mFaceGraphic.getSourceId(), false /* no looped playback */);
-                Log.v(TAG, "... start playing sound");
-                } else {
-                    Log.e(TAG, "onUpdate with sourceId invalid !");
+            Log.v(TAG, "New face detected: " + faceId + " @ x:" + face.getPosition().x + " y:" + face.getPosition().y + " W:" + face.getWidth());
+            if (mCueTracker.onNewItem(toObservation(face, mObservation),
+                    System.currentTimeMillis())) {
+                onCuePlayed();
+            }
+            if (mCueTracker.isEnabled() && mCueTracker.getSourceId() == AudioEngine.INVALID_ID) {
+                Log.e(TAG, "Failed to create sound object !");
             }
         }
 
@@ -439,36 +608,31 @@ public final class FaceTrackerActivity extends AppCompatActivity {
          */
         @Override
         public void onUpdate(FaceDetector.Detections<Face> detectionResults, Face face) {
-            mOverlay.add(mFaceGraphic);
             mFaceGraphic.updateFace(face);
+            int generation = mOverlay.getGeneration();
+            if (!mVisible || generation != mOverlayGeneration) {
+                mOverlayGeneration = generation;
+                mOverlay.add(mFaceId, mFaceGraphic, true);
+                mVisible = true;
+            }
 
-            // Play sound reflecting face position
-            if(gvrAudioEngine != null) {
-                if((System.currentTimeMillis() - lastSound) > 250) {
-                    lastSound = System.currentTimeMillis();
-                    Log.v(TAG, "... update face position: " + face.getId() + " @ x:" + face.getPosition().x + " y:" + face.getPosition().y + " W:" + face.getWidth());
-                    Log.v(TAG, "...... x:" + (face.getPosition().x - (facePosMinX + facePosMoyX)) + " y:" + (face.getPosition().y - (facePosMinY + facePosMoyY)) + " W:" + (face.getWidth() - faceWidthMax));
-                    if (mFaceGraphic.getSourceId() != GvrAudioEngine.INVALID_ID) {
-
-                        sourceId = gvrAudioEngine.createSoundObject(OBJECT_SOUND_FILE);
-                        if (sourceId == GvrAudioEngine.INVALID_ID) {
-                            Log.e(TAG, "Failed to create sound object !");
-                        } else {
-                            Log.v(TAG, "Sound file preloaded and object created !");
-                            mFaceGraphic.setSourceId(sourceId);
-                        }
+            // Play sound reflecting face position, unless crowd mode plays grouped cues.
+            onFrame(detectionResults);
+            long now = System.currentTimeMillis();
+            float lastCenterX = mObservation.getCenterX();
+            float lastCenterY = mObservation.getCenterY();
+            FaceObservation observation = toObservation(face, mObservation);
+            if (mLastUpdateMillis != 0 && now > mLastUpdateMillis) {
+                float elapsed = now - mLastUpdateMillis;
+                mVelocityX = 0.5f * mVelocityX
+                        + 0.5f * (observation.getCenterX() - lastCenterX) / elapsed;
+                mVelocityY = 0.5f * mVelocityY
+                        + 0.5f * (observation.getCenterY() - lastCenterY) / elapsed;
+            }
+            mLastUpdateMillis = now;
 
-                        gvrAudioEngine.setSoundObjectDistanceRolloffModel(mFaceGraphic.getSourceId(), GvrAudioEngine.DistanceRolloffModel.LINEAR, 50.0f, faceWidthMax);
-                        gvrAudioEngine.setSoundObjectPosition(mFaceGraphic.getSourceId(), (face.getPosition().x - (facePosMinX + facePosMoyX)), (face.getWidth() - faceWidthMax), (face.getPosition().y - (facePosMinY + facePosMoyY)));
-                        gvrAudioEngine.playSound(mFaceGraphic.getSourceId(), false /* no looped playback */);
-                        Log.v(TAG, "... start playing sound");
-                    } else {
-                        Log.e(TAG, "onUpdate with sourceId invalid !");
-                    }
-                }
-
-                // Regular update call to GVR audio engine.
-                gvrAudioEngine.update();
+            if (mCueTracker.onUpdate(observation, now)) {
+                onCuePlayed();
             }
         }
 
@@ -479,33 +643,48 @@ public final class FaceTrackerActivity extends AppCompatActivity {
          */
         @Override
         public void onMissing(FaceDetector.Detections<Face> detectionResults) {
-            if(gvrAudioEngine != null) {
-                if (mFaceGraphic.getSourceId() != GvrAudioEngine.INVALID_ID) {
-                    if (gvrAudioEngine.isSoundPlaying(mFaceGraphic.getSourceId())) {
-                        Log.v(TAG, "... need to stop playing sound - onMissing");
-                        gvrAudioEngine.stopSound(mFaceGraphic.getSourceId());
-                    }
-                }
+            onFrame(detectionResults);
+            mCueTracker.onMissing();
+            if (mVisible) {
+                mOverlay.setVisible(mFaceId, false);
+                mVisible = false;
             }
-
-            mOverlay.remove(mFaceGraphic);
         }
 
         /**
-         * Called when the face is assumed to be gone for good. Remove the graphic annotation from
-         * the overlay.
+         * Called when the detector gives up on the face.  The tracker waits in the lost track
+         * cache, with its graphic hidden, in case the face shows up again.
          */
         @Override
         public void onDone() {
-            if(gvrAudioEngine != null) {
-                if (mFaceGraphic.getSourceId() != GvrAudioEngine.INVALID_ID) {
-                    if (gvrAudioEngine.isSoundPlaying(mFaceGraphic.getSourceId())) {
-                        Log.v(TAG, "... need to stop playing sound - onDone");
-                        gvrAudioEngine.stopSound(mFaceGraphic.getSourceId());
-                    }
-                }
+            mCueTracker.onDone();
+            if (mVisible) {
+                mOverlay.setVisible(mFaceId, false);
+                mVisible = false;
+            }
+            mLost = true;
+            mLostMillis = System.currentTimeMillis();
+            mLostTracks.put(mObservation, mVelocityX, mVelocityY, mLostMillis, this);
+        }
+
+        private void onCuePlayed() {
+            // Zero until the detector sees its first frame.
+            long frameStart = mDetector.getFrameStartNanos();
+            long latency = frameStart != 0 ? System.nanoTime() - frameStart : -1;
+            mAnalytics.onCuePlayed(latency, System.currentTimeMillis());
+            if (latency >= 0) {
+                AppMetrics.FRAME_TO_CUE.record(latency);
             }
-            mOverlay.remove(mFaceGraphic);
+            AppMetrics.TRACKER_CUES.mark();
+        }
+
+        /**
+         * Called when the face is assumed to be gone for good. Remove the graphic annotation from
+         * the overlay.
+         */
+        void release() {
+            mAnalytics.onTrackEnded(mLostMillis - mStartMillis, mLostMillis);
+            mOverlay.remove(mFaceId);
         }
     }
 }
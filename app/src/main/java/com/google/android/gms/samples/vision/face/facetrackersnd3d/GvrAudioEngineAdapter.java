@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.AudioEngine;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics.AppMetrics;
+import com.google.vr.sdk.audio.GvrAudioEngine;
+
+import java.util.Arrays;
+
+/**
+ * {@link AudioEngine} backed by the GVR spatial audio engine.  Counts the calls into the engine
+ * in {@link AppMetrics#AUDIO_CALLS}.
+ */
+class GvrAudioEngineAdapter implements AudioEngine {
+    private final GvrAudioEngine mEngine;
+    private volatile int mLastSourceId = INVALID_ID;
+
+    // Every sound object created and not yet known to be destroyed, for
+    // countPlayingSoundObjects() and stopAllSounds().  Stopped objects are dropped right away,
+    // finished ones whenever the array is full, and the array grows if that frees too little.
+    private final Object mSourceIdsLock = new Object();
+    private int[] mSourceIds = new int[16];
+    private int mSourceIdCount;
+
+    GvrAudioEngineAdapter(GvrAudioEngine engine) {
+        mEngine = engine;
+    }
+
+    /**
+     * Returns the most recently created or played sound object, which the audio thread watches
+     * to decide whether the engine needs updating.
+     */
+    int getLastSourceId() {
+        return mLastSourceId;
+    }
+
+    /**
+     * Returns the number of sound objects still playing, and forgets the others.  Costs one
+     * engine call per sound object: only meant for metrics.
+     */
+    int countPlayingSoundObjects() {
+        synchronized (mSourceIdsLock) {
+            pruneFinishedSounds();
+            return mSourceIdCount;
+        }
+    }
+
+    /**
+     * Stops every sound object still playing, e.g. before the engine is released.
+     */
+    void stopAllSounds() {
+        synchronized (mSourceIdsLock) {
+            for (int i = 0; i < mSourceIdCount; i++) {
+                if (mEngine.isSoundPlaying(mSourceIds[i])) {
+                    mEngine.stopSound(mSourceIds[i]);
+                }
+            }
+            mSourceIdCount = 0;
+        }
+    }
+
+    /**
+     * Frees the decoded data of a preloaded sound file.
+     */
+    void unloadSoundFile(String filename) {
+        AppMetrics.AUDIO_CALLS.mark();
+        mEngine.unloadSoundFile(filename);
+    }
+
+    /**
+     * Forgets the sound objects whose playback ended, which the engine destroyed.
+     */
+    private void pruneFinishedSounds() {
+        int count = 0;
+        for (int i = 0; i < mSourceIdCount; i++) {
+            if (mEngine.isSoundPlaying(mSourceIds[i])) {
+                mSourceIds[count++] = mSourceIds[i];
+            }
+        }
+        mSourceIdCount = count;
+    }
+
+    @Override
+    public boolean preloadSoundFile(String filename) {
+        AppMetrics.AUDIO_CALLS.mark();
+        return mEngine.preloadSoundFile(filename);
+    }
+
+    @Override
+    public int createSoundObject(String filename) {
+        AppMetrics.AUDIO_CALLS.mark();
+        int sourceId = mEngine.createSoundObject(filename);
+        if (sourceId == GvrAudioEngine.INVALID_ID) {
+            return INVALID_ID;
+        }
+        mLastSourceId = sourceId;
+        synchronized (mSourceIdsLock) {
+            if (mSourceIdCount == mSourceIds.length) {
+                pruneFinishedSounds();
+                // Keep the pruning amortized: grow unless at least half the array was freed.
+                if (mSourceIdCount > mSourceIds.length / 2) {
+                    mSourceIds = Arrays.copyOf(mSourceIds, mSourceIds.length * 2);
+                }
+            }
+            mSourceIds[mSourceIdCount++] = sourceId;
+        }
+        return sourceId;
+    }
+
+    @Override
+    public void setSoundObjectPosition(int sourceId, float x, float y, float z) {
+        AppMetrics.AUDIO_CALLS.mark();
+        mEngine.setSoundObjectPosition(sourceId, x, y, z);
+    }
+
+    @Override
+    public void setSoundObjectLinearRolloff(int sourceId, float minDistance, float maxDistance) {
+        AppMetrics.AUDIO_CALLS.mark();
+        mEngine.setSoundObjectDistanceRolloffModel(sourceId,
+                GvrAudioEngine.DistanceRolloffModel.LINEAR, minDistance, maxDistance);
+    }
+
+    @Override
+    public void setSoundVolume(int sourceId, float volume) {
+        AppMetrics.AUDIO_CALLS.mark();
+        mEngine.setSoundVolume(sourceId, volume);
+    }
+
+    @Override
+    public void playSound(int sourceId, boolean loopingEnabled) {
+        AppMetrics.AUDIO_CALLS.mark();
+        mEngine.playSound(sourceId, loopingEnabled);
+        mLastSourceId = sourceId;
+    }
+
+    @Override
+    public void stopSound(int sourceId) {
+        AppMetrics.AUDIO_CALLS.mark();
+        mEngine.stopSound(sourceId);
+        synchronized (mSourceIdsLock) {
+            for (int i = 0; i < mSourceIdCount; i++) {
+                if (mSourceIds[i] == sourceId) {
+                    mSourceIds[i] = mSourceIds[--mSourceIdCount];
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isSoundPlaying(int sourceId) {
+        AppMetrics.AUDIO_CALLS.mark();
+        return mEngine.isSoundPlaying(sourceId);
+    }
+
+    @Override
+    public void setHeadPosition(float x, float y, float z) {
+        AppMetrics.AUDIO_CALLS.mark();
+        mEngine.setHeadPosition(x, y, z);
+    }
+
+    @Override
+    public void setHeadRotation(float x, float y, float z, float w) {
+        AppMetrics.AUDIO_CALLS.mark();
+        mEngine.setHeadRotation(x, y, z, w);
+    }
+
+    @Override
+    public void update() {
+        AppMetrics.AUDIO_CALLS.mark();
+        mEngine.update();
+    }
+
+    @Override
+    public void pause() {
+        AppMetrics.AUDIO_CALLS.mark();
+        mEngine.pause();
+    }
+
+    @Override
+    public void resume() {
+        AppMetrics.AUDIO_CALLS.mark();
+        mEngine.resume();
+    }
+}
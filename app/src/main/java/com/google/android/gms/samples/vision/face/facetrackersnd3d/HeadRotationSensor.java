@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.sensor.HeadRotationFusion;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera.TrackedHandlerThread;
+
+/**
+ * Reads the rotation vector sensor at high rate on a dedicated thread and feeds the samples to a
+ * {@link HeadRotationFusion}.  The game rotation vector is preferred since it does not jump when
+ * the magnetometer is disturbed; the plain rotation vector is used when it is not available.
+ */
+class HeadRotationSensor implements SensorEventListener {
+    private static final String TAG = "HeadRotationSensor";
+
+    // Requested sampling period; the audio thread picks up the latest sample on every tick.
+    private static final int SAMPLING_PERIOD_US = 10000;
+    private static final float SMOOTHING_TIME_CONSTANT_S = 0.05f;
+
+    private final SensorManager mSensorManager;
+    private final Sensor mSensor;
+    private final HeadRotationFusion mFusion = new HeadRotationFusion(SMOOTHING_TIME_CONSTANT_S);
+    private HandlerThread mThread;
+
+    HeadRotationSensor(Context context) {
+        mSensorManager = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
+        Sensor sensor = mSensorManager.getDefaultSensor(Sensor.TYPE_GAME_ROTATION_VECTOR);
+        if (sensor == null) {
+            sensor = mSensorManager.getDefaultSensor(Sensor.TYPE_ROTATION_VECTOR);
+        }
+        mSensor = sensor;
+        if (mSensor == null) {
+            Log.w(TAG, "No rotation vector sensor, head rotation will stay fixed.");
+        }
+    }
+
+    HeadRotationFusion getFusion() {
+        return mFusion;
+    }
+
+    /**
+     * Starts listening to the sensor.  The current phone orientation becomes the reference
+     * heading.
+     */
+    void start() {
+        if (mSensor == null || mThread != null) {
+            return;
+        }
+        mThread = new TrackedHandlerThread(TAG);
+        mThread.start();
+        mFusion.recenter();
+        mSensorManager.registerListener(this, mSensor, SAMPLING_PERIOD_US,
+                new Handler(mThread.getLooper()));
+    }
+
+    /**
+     * Stops listening to the sensor and releases the sensor thread.
+     */
+    void stop() {
+        if (mThread == null) {
+            return;
+        }
+        mSensorManager.unregisterListener(this);
+        mThread.quitSafely();
+        mThread = null;
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        mFusion.onRotationVector(event.timestamp, event.values);
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+    }
+}
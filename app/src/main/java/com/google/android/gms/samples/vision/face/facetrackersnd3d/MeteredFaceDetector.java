@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d;
+
+import android.util.SparseArray;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics.AppMetrics;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics.MetricsRegistry;
+import com.google.android.gms.vision.Detector;
+import com.google.android.gms.vision.Frame;
+import com.google.android.gms.vision.face.Face;
+
+/**
+ * Face detector wrapper recording the camera and detector metrics: frames delivered and dropped
+ * by the camera, frames detected and the time detection takes.  Also remembers when the current
+ * frame reached the detector, so that trackers can measure the latency of the cues they play
+ * whether metrics are enabled or not.  An optional frame callback runs on the detector thread
+ * before each frame is detected, whether or not it holds any face.
+ */
+class MeteredFaceDetector extends Detector<Face> {
+    private final Detector<Face> mDelegate;
+    private final MetricsRegistry mRegistry = MetricsRegistry.getDefault();
+    private int mLastFrameId = -1;
+    private long mFrameStartNanos;
+    private Runnable mFrameCallback;
+
+    MeteredFaceDetector(Detector<Face> delegate) {
+        mDelegate = delegate;
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} at which the frame being processed reached the
+     * detector, or zero before the first frame.  Only meaningful on the detector thread.
+     */
+    long getFrameStartNanos() {
+        return mFrameStartNanos;
+    }
+
+    /**
+     * Sets the callback run on the detector thread at the start of every frame, or null for none.
+     * Set it before the camera source starts.
+     */
+    void setFrameCallback(Runnable callback) {
+        mFrameCallback = callback;
+    }
+
+    @Override
+    public SparseArray<Face> detect(Frame frame) {
+        long start = System.nanoTime();
+        mFrameStartNanos = start;
+        if (mFrameCallback != null) {
+            mFrameCallback.run();
+        }
+        if (!mRegistry.isEnabled()) {
+            return mDelegate.detect(frame);
+        }
+
+        // The camera source numbers every preview frame, and skips those that arrive while the
+        // detector is busy: gaps in the ids are dropped frames.
+        int frameId = frame.getMetadata().getId();
+        if (mLastFrameId >= 0 && frameId > mLastFrameId) {
+            AppMetrics.CAMERA_FRAMES.mark(frameId - mLastFrameId);
+            AppMetrics.CAMERA_DROPPED.add(frameId - mLastFrameId - 1);
+        } else {
+            AppMetrics.CAMERA_FRAMES.mark();
+        }
+        mLastFrameId = frameId;
+
+        SparseArray<Face> faces = mDelegate.detect(frame);
+        AppMetrics.DETECTOR_TIME.record(System.nanoTime() - start);
+        AppMetrics.DETECTOR_FRAMES.mark();
+        return faces;
+    }
+
+    @Override
+    public boolean isOperational() {
+        return mDelegate.isOperational();
+    }
+
+    @Override
+    public boolean setFocus(int id) {
+        return mDelegate.setFocus(id);
+    }
+
+    @Override
+    public void release() {
+        mDelegate.release();
+        super.release();
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d;
+
+import android.graphics.ImageFormat;
+import android.graphics.PointF;
+import android.util.Log;
+import android.util.SparseArray;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.frame.ImageCrop;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.frame.RoiScheduler;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics.AppMetrics;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking.FaceIdAssigner;
+import com.google.android.gms.vision.Detector;
+import com.google.android.gms.vision.Frame;
+import com.google.android.gms.vision.face.Face;
+import com.google.android.gms.vision.face.Landmark;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Face detector wrapper that scans only a padded region around the faces of the previous frame,
+ * as chosen by a {@link RoiScheduler}, with a periodic full frame scan to find new faces.  The
+ * faces found in a region are mapped back to full frame coordinates, so the overlay and the
+ * audio path see the same coordinates in both modes.<p>
+ *
+ * Consecutive scans cover different areas, which defeats the delegate's own tracking: create
+ * it with tracking disabled.  Faces get stable ids from a {@link FaceIdAssigner} instead.<p>
+ *
+ * Faces of a full scan are handed on as is when their id is already right.  Faces of a region
+ * scan are copied with translated positions; their landmarks are kept per face id and moved in
+ * place, so they are only valid until the next frame.<p>
+ *
+ * The mean pixels scanned per frame, and the detection time of full and region scans, are
+ * recorded in the {@link AppMetrics} and logged periodically.
+ */
+class RoiFaceDetector extends Detector<Face> {
+    private static final String TAG = "RoiFaceDetector";
+    private static final int FULL_SCAN_INTERVAL_FRAMES = 10;
+    private static final float ROI_PADDING = 0.5f;
+    private static final float MAX_ROI_FRACTION = 0.6f;
+    private static final int PIXELS_SAMPLE_FRAMES = 30;
+    private static final int REPORT_INTERVAL_FRAMES = 300;
+    private static final Landmark[] NO_LANDMARKS = new Landmark[0];
+
+    private final Detector<Face> mDelegate;
+    private final RoiScheduler mScheduler =
+            new RoiScheduler(FULL_SCAN_INTERVAL_FRAMES, ROI_PADDING, MAX_ROI_FRACTION);
+    private final FaceIdAssigner mIdAssigner = new FaceIdAssigner();
+    private final SparseArray<Face> mFaces = new SparseArray<>();
+    // Translated landmarks of the faces of the last frame, by face id.
+    private final SparseArray<Landmark[]> mLandmarks = new SparseArray<>();
+    private ByteBuffer mCropBuffer;
+
+    // Pixels of the current sample window, and timings of the current report window.
+    private long mSamplePixels;
+    private int mSampleFrames;
+    private long mFullScanNanos;
+    private int mFullScans;
+    private long mRoiScanNanos;
+    private int mRoiScans;
+
+    RoiFaceDetector(Detector<Face> delegate) {
+        mDelegate = delegate;
+    }
+
+    @Override
+    public SparseArray<Face> detect(Frame frame) {
+        Frame.Metadata metadata = frame.getMetadata();
+        int width = metadata.getWidth();
+        int height = metadata.getHeight();
+        boolean fullScan = mScheduler.beginFrame(width, height, metadata.getRotation())
+                || frame.getBitmap() != null;
+
+        long start = System.nanoTime();
+        SparseArray<Face> detected;
+        int offsetX = 0;
+        int offsetY = 0;
+        if (fullScan) {
+            detected = mDelegate.detect(frame);
+        } else {
+            detected = mDelegate.detect(cropFrame(frame));
+            offsetX = mScheduler.getRoiUprightLeft();
+            offsetY = mScheduler.getRoiUprightTop();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Map the faces back to full frame coordinates, with ids that do not depend on the
+        // area scanned.  The returned array is reused: the processor is done with it when the
+        // next frame is detected.
+        mFaces.clear();
+        mIdAssigner.begin();
+        for (int i = 0; i < detected.size(); i++) {
+            Face face = detected.valueAt(i);
+            PointF position = face.getPosition();
+            float left = position.x + offsetX;
+            float top = position.y + offsetY;
+            mScheduler.addFace(left, top, face.getWidth(), face.getHeight());
+            int id = mIdAssigner.assign(left + face.getWidth() / 2, top + face.getHeight() / 2,
+                    face.getWidth());
+            mFaces.put(id, translate(face, id, offsetX, offsetY));
+        }
+        mIdAssigner.end();
+        mScheduler.endFrame();
+        for (int i = mLandmarks.size() - 1; i >= 0; i--) {
+            if (mFaces.indexOfKey(mLandmarks.keyAt(i)) < 0) {
+                mLandmarks.removeAt(i);
+            }
+        }
+
+        record(fullScan, (long) mScheduler.getRoiWidth() * mScheduler.getRoiHeight(),
+                (long) width * height, elapsed);
+        return mFaces;
+    }
+
+    /**
+     * Returns a frame of the scheduler's region, sharing the rotation, id and timestamp of the
+     * full frame.
+     */
+    private Frame cropFrame(Frame frame) {
+        Frame.Metadata metadata = frame.getMetadata();
+        int cropWidth = mScheduler.getRoiWidth();
+        int cropHeight = mScheduler.getRoiHeight();
+        // NV21 size of the full frame, the largest region.
+        int capacity = metadata.getWidth() * metadata.getHeight() * 3 / 2;
+        if (mCropBuffer == null || mCropBuffer.capacity() < capacity) {
+            mCropBuffer = ByteBuffer.allocateDirect(capacity);
+        }
+        ImageCrop.cropLuma(frame.getGrayscaleImageData().duplicate(), metadata.getWidth(),
+                mScheduler.getRoiLeft(), mScheduler.getRoiTop(), cropWidth, cropHeight,
+                mCropBuffer);
+        mCropBuffer.clear();
+        return new Frame.Builder()
+                .setImageData(mCropBuffer, cropWidth, cropHeight, ImageFormat.NV21)
+                .setId(metadata.getId())
+                .setTimestampMillis(metadata.getTimestampMillis())
+                .setRotation(metadata.getRotation())
+                .build();
+    }
+
+    /**
+     * Returns the face in full frame coordinates with the given id: the delegate's face when it
+     * already is, otherwise a copy.
+     */
+    private Face translate(Face face, int id, int offsetX, int offsetY) {
+        if (offsetX == 0 && offsetY == 0 && face.getId() == id) {
+            return face;
+        }
+        PointF position = face.getPosition();
+        position.offset(offsetX, offsetY);
+        return new Face(id, position, face.getWidth(), face.getHeight(), face.getEulerY(),
+                face.getEulerZ(), translateLandmarks(face, id, offsetX, offsetY),
+                face.getIsLeftEyeOpenProbability(), face.getIsRightEyeOpenProbability(),
+                face.getIsSmilingProbability());
+    }
+
+    /**
+     * Returns the landmarks of a face in full frame coordinates, reusing the landmarks of the
+     * same face id from the previous frame when they are of the same types.
+     */
+    private Landmark[] translateLandmarks(Face face, int id, int offsetX, int offsetY) {
+        List<Landmark> landmarks = face.getLandmarks();
+        if (landmarks.isEmpty()) {
+            return NO_LANDMARKS;
+        }
+        Landmark[] translated = mLandmarks.get(id);
+        if (translated == null || !sameTypes(translated, landmarks)) {
+            translated = new Landmark[landmarks.size()];
+            for (int i = 0; i < translated.length; i++) {
+                translated[i] = new Landmark(new PointF(), landmarks.get(i).getType());
+            }
+            mLandmarks.put(id, translated);
+        }
+        // A landmark hands out the position it was built with, so it can be moved in place.
+        for (int i = 0; i < translated.length; i++) {
+            PointF source = landmarks.get(i).getPosition();
+            translated[i].getPosition().set(source.x + offsetX, source.y + offsetY);
+        }
+        return translated;
+    }
+
+    private static boolean sameTypes(Landmark[] translated, List<Landmark> landmarks) {
+        if (translated.length != landmarks.size()) {
+            return false;
+        }
+        for (int i = 0; i < translated.length; i++) {
+            if (translated[i].getType() != landmarks.get(i).getType()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void record(boolean fullScan, long pixels, long framePixels, long elapsedNanos) {
+        if (fullScan) {
+            AppMetrics.DETECTOR_FULL_SCAN_TIME.record(elapsedNanos);
+            mFullScanNanos += elapsedNanos;
+            mFullScans++;
+        } else {
+            AppMetrics.DETECTOR_ROI_SCAN_TIME.record(elapsedNanos);
+            mRoiScanNanos += elapsedNanos;
+            mRoiScans++;
+        }
+
+        mSamplePixels += pixels;
+        if (++mSampleFrames == PIXELS_SAMPLE_FRAMES) {
+            AppMetrics.DETECTOR_PIXELS.set(mSamplePixels / mSampleFrames);
+            mSamplePixels = 0;
+            mSampleFrames = 0;
+        }
+
+        long frames = mScheduler.getFrameCount();
+        if (frames % REPORT_INTERVAL_FRAMES == 0) {
+            Log.d(TAG, "frames: " + frames + " full scans: " + mScheduler.getFullScanCount()
+                    + " pixels per frame: " + mScheduler.getPixelsProcessed() / frames
+                    + " of " + framePixels
+                    + " full scan: " + meanMicros(mFullScanNanos, mFullScans)
+                    + "us roi scan: " + meanMicros(mRoiScanNanos, mRoiScans) + "us");
+            mFullScanNanos = 0;
+            mFullScans = 0;
+            mRoiScanNanos = 0;
+            mRoiScans = 0;
+        }
+    }
+
+    private static long meanMicros(long totalNanos, int count) {
+        return count == 0 ? 0 : totalNanos / count / 1000;
+    }
+
+    @Override
+    public boolean isOperational() {
+        return mDelegate.isOperational();
+    }
+
+    /**
+     * Not supported: the ids of the faces returned are not those of the delegate.
+     */
+    @Override
+    public boolean setFocus(int id) {
+        return false;
+    }
+
+    @Override
+    public void release() {
+        mDelegate.release();
+        super.release();
+    }
+}
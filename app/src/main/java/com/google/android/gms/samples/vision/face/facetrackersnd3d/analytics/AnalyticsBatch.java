@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Session statistics aggregated over a period of time: tracks started, re-identified and ended,
+ * track durations, cues played and their latency.  Events are folded into counters, sums and
+ * fixed histograms as they arrive, so a batch has the same small size however many events it
+ * covers.<p>
+ *
+ * Histograms have power of two buckets: track durations from under 250 ms to 16 s and more,
+ * cue latencies from under 2 ms to 128 ms and more.
+ */
+public final class AnalyticsBatch {
+    public static final int HISTOGRAM_BUCKETS = 8;
+    private static final long FIRST_DURATION_BOUND_MILLIS = 250;
+    private static final long FIRST_LATENCY_BOUND_MICROS = 2000;
+
+    private long mStartMillis;
+    private long mEndMillis;
+    private int mTracksStarted;
+    private int mTracksReidentified;
+    private int mTracksEnded;
+    private long mTrackDurationTotalMillis;
+    private long mTrackDurationMaxMillis;
+    private final int[] mTrackDurationHistogram = new int[HISTOGRAM_BUCKETS];
+    private int mCuesPlayed;
+    private int mCueLatencyCount;
+    private long mCueLatencyTotalMicros;
+    private long mCueLatencyMaxMicros;
+    private final int[] mCueLatencyHistogram = new int[HISTOGRAM_BUCKETS];
+
+    /**
+     * Clears the batch, which then starts at {@code startMillis}.
+     */
+    public void reset(long startMillis) {
+        mStartMillis = startMillis;
+        mEndMillis = startMillis;
+        mTracksStarted = 0;
+        mTracksReidentified = 0;
+        mTracksEnded = 0;
+        mTrackDurationTotalMillis = 0;
+        mTrackDurationMaxMillis = 0;
+        Arrays.fill(mTrackDurationHistogram, 0);
+        mCuesPlayed = 0;
+        mCueLatencyCount = 0;
+        mCueLatencyTotalMicros = 0;
+        mCueLatencyMaxMicros = 0;
+        Arrays.fill(mCueLatencyHistogram, 0);
+    }
+
+    /**
+     * Returns true if no event was added since the last reset.
+     */
+    public boolean isEmpty() {
+        return mTracksStarted == 0 && mTracksReidentified == 0 && mTracksEnded == 0
+                && mCuesPlayed == 0;
+    }
+
+    void addTrackStarted(long nowMillis) {
+        mTracksStarted++;
+        mEndMillis = nowMillis;
+    }
+
+    void addTrackReidentified(long nowMillis) {
+        mTracksReidentified++;
+        mEndMillis = nowMillis;
+    }
+
+    void addTrackEnded(long durationMillis, long nowMillis) {
+        mTracksEnded++;
+        mTrackDurationTotalMillis += durationMillis;
+        mTrackDurationMaxMillis = Math.max(mTrackDurationMaxMillis, durationMillis);
+        mTrackDurationHistogram[bucket(durationMillis, FIRST_DURATION_BOUND_MILLIS)]++;
+        mEndMillis = nowMillis;
+    }
+
+    void addCuePlayed(long latencyMicros, long nowMillis) {
+        mCuesPlayed++;
+        if (latencyMicros >= 0) {
+            mCueLatencyCount++;
+            mCueLatencyTotalMicros += latencyMicros;
+            mCueLatencyMaxMicros = Math.max(mCueLatencyMaxMicros, latencyMicros);
+            mCueLatencyHistogram[bucket(latencyMicros, FIRST_LATENCY_BOUND_MICROS)]++;
+        }
+        mEndMillis = nowMillis;
+    }
+
+    public long getStartMillis() {
+        return mStartMillis;
+    }
+
+    /**
+     * Returns the time of the last event in the batch.
+     */
+    public long getEndMillis() {
+        return mEndMillis;
+    }
+
+    public int getTracksStarted() {
+        return mTracksStarted;
+    }
+
+    public int getTracksReidentified() {
+        return mTracksReidentified;
+    }
+
+    public int getTracksEnded() {
+        return mTracksEnded;
+    }
+
+    public long getTrackDurationTotalMillis() {
+        return mTrackDurationTotalMillis;
+    }
+
+    public long getTrackDurationMaxMillis() {
+        return mTrackDurationMaxMillis;
+    }
+
+    public int getTrackDurationBucket(int bucket) {
+        return mTrackDurationHistogram[bucket];
+    }
+
+    public int getCuesPlayed() {
+        return mCuesPlayed;
+    }
+
+    /**
+     * Returns the number of cues played with a known latency.
+     */
+    public int getCueLatencyCount() {
+        return mCueLatencyCount;
+    }
+
+    public long getCueLatencyTotalMicros() {
+        return mCueLatencyTotalMicros;
+    }
+
+    public long getCueLatencyMaxMicros() {
+        return mCueLatencyMaxMicros;
+    }
+
+    public int getCueLatencyBucket(int bucket) {
+        return mCueLatencyHistogram[bucket];
+    }
+
+    /**
+     * Writes the batch as a fixed size record.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(mStartMillis);
+        out.writeLong(mEndMillis);
+        out.writeInt(mTracksStarted);
+        out.writeInt(mTracksReidentified);
+        out.writeInt(mTracksEnded);
+        out.writeLong(mTrackDurationTotalMillis);
+        out.writeLong(mTrackDurationMaxMillis);
+        for (int count : mTrackDurationHistogram) {
+            out.writeInt(count);
+        }
+        out.writeInt(mCuesPlayed);
+        out.writeInt(mCueLatencyCount);
+        out.writeLong(mCueLatencyTotalMicros);
+        out.writeLong(mCueLatencyMaxMicros);
+        for (int count : mCueLatencyHistogram) {
+            out.writeInt(count);
+        }
+    }
+
+    /**
+     * Reads a record written by {@link #writeTo(DataOutput)}.
+     */
+    public void readFrom(DataInput in) throws IOException {
+        mStartMillis = in.readLong();
+        mEndMillis = in.readLong();
+        mTracksStarted = in.readInt();
+        mTracksReidentified = in.readInt();
+        mTracksEnded = in.readInt();
+        mTrackDurationTotalMillis = in.readLong();
+        mTrackDurationMaxMillis = in.readLong();
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            mTrackDurationHistogram[i] = in.readInt();
+        }
+        mCuesPlayed = in.readInt();
+        mCueLatencyCount = in.readInt();
+        mCueLatencyTotalMicros = in.readLong();
+        mCueLatencyMaxMicros = in.readLong();
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            mCueLatencyHistogram[i] = in.readInt();
+        }
+    }
+
+    private static int bucket(long value, long firstBound) {
+        int bucket = 0;
+        for (long bound = firstBound; bucket < HISTOGRAM_BUCKETS - 1 && value >= bound;
+                bound <<= 1) {
+            bucket++;
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.analytics;
+
+import java.io.IOException;
+
+/**
+ * Persistent store for session statistics.  Only used from the analytics writer thread.
+ */
+public interface AnalyticsStore {
+    /**
+     * Appends a batch.  The batch is reused once this returns.
+     */
+    void write(AnalyticsBatch batch) throws IOException;
+
+    /**
+     * Makes the batches written so far durable.
+     */
+    void flush() throws IOException;
+
+    /**
+     * Flushes and releases the store.
+     */
+    void close() throws IOException;
+}
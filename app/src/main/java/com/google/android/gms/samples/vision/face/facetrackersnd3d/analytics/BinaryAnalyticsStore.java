@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.analytics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link AnalyticsStore} appending batches to a file as fixed size big-endian records, after a
+ * header made of a magic number and a format version.  The file is only opened on the first
+ * write, on the writer thread.
+ */
+public final class BinaryAnalyticsStore implements AnalyticsStore {
+    private static final int MAGIC = 0x46545341; // "FTSA"
+    private static final int VERSION = 1;
+
+    private final File mFile;
+    private DataOutputStream mOut;
+
+    public BinaryAnalyticsStore(File file) {
+        mFile = file;
+    }
+
+    @Override
+    public void write(AnalyticsBatch batch) throws IOException {
+        if (mOut == null) {
+            open();
+        }
+        batch.writeTo(mOut);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (mOut != null) {
+            mOut.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (mOut != null) {
+            mOut.close();
+            mOut = null;
+        }
+    }
+
+    private void open() throws IOException {
+        File directory = mFile.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        boolean isNew = mFile.length() == 0;
+        mOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(mFile, true)));
+        if (isNew) {
+            mOut.writeInt(MAGIC);
+            mOut.writeInt(VERSION);
+        }
+    }
+
+    /**
+     * Reads all the batches of a file written by this store.
+     */
+    public static List<AnalyticsBatch> read(File file) throws IOException {
+        List<AnalyticsBatch> batches = new ArrayList<>();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an analytics file: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported analytics version " + version + ": " + file);
+            }
+            while (true) {
+                AnalyticsBatch batch = new AnalyticsBatch();
+                try {
+                    batch.readFrom(in);
+                } catch (EOFException e) {
+                    // A record cut short by a crash is dropped.
+                    break;
+                }
+                batches.add(batch);
+            }
+        } finally {
+            in.close();
+        }
+        return batches;
+    }
+}
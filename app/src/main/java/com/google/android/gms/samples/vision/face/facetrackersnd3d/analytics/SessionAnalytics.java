@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.analytics;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.lifecycle.TrackedThread;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * Collects per-session statistics from the tracker events and persists them without doing any
+ * I/O on the calling threads.<p>
+ *
+ * Events are folded into the current {@link AnalyticsBatch}.  Once per batch interval, or on
+ * {@link #flush(long)}, the batch is handed to a background writer thread that appends it to the
+ * {@link AnalyticsStore}, and recording continues in a fresh batch.  Batches come from a small
+ * fixed pool: when the writer falls behind, events keep being coalesced into the current batch
+ * instead of queueing more, so memory stays bounded however many events arrive.<p>
+ *
+ * Recording methods are thread safe and only hold a lock for a few field updates.  Call
+ * {@link #start()} before recording and {@link #close(long)} at the end of the session.
+ */
+public final class SessionAnalytics {
+    private static final String THREAD_NAME = "SessionAnalyticsWriter";
+    private static final int POOL_SIZE = 4;
+
+    private final AnalyticsStore mStore;
+    private final long mBatchIntervalMillis;
+    private final Thread mWriterThread;
+
+    private final Object mLock = new Object();
+    private AnalyticsBatch mCurrent;
+    private final ArrayDeque<AnalyticsBatch> mFree = new ArrayDeque<>(POOL_SIZE);
+    private final ArrayDeque<AnalyticsBatch> mPending = new ArrayDeque<>(POOL_SIZE);
+    private boolean mClosing;
+    private long mCoalescedBatches;
+    private boolean mCurrentCoalesced;
+
+    private volatile long mBatchesWritten;
+    private volatile long mWriteErrors;
+    private volatile IOException mLastError;
+
+    /**
+     * @param store store written by the writer thread
+     * @param batchIntervalMillis how often batches are handed to the writer
+     * @param nowMillis start of the session
+     */
+    public SessionAnalytics(AnalyticsStore store, long batchIntervalMillis, long nowMillis) {
+        mStore = store;
+        mBatchIntervalMillis = batchIntervalMillis;
+        for (int i = 0; i < POOL_SIZE - 1; i++) {
+            mFree.push(new AnalyticsBatch());
+        }
+        mCurrent = new AnalyticsBatch();
+        mCurrent.reset(nowMillis);
+        mWriterThread = new TrackedThread(new Runnable() {
+            @Override
+            public void run() {
+                writeBatches();
+            }
+        }, THREAD_NAME);
+        mWriterThread.setPriority(Thread.MIN_PRIORITY);
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    public void start() {
+        mWriterThread.start();
+    }
+
+    public void onTrackStarted(long nowMillis) {
+        synchronized (mLock) {
+            mCurrent.addTrackStarted(nowMillis);
+            handOffIfDue(nowMillis);
+        }
+    }
+
+    /**
+     * Records a new detection that took back a recently lost track.
+     */
+    public void onTrackReidentified(long nowMillis) {
+        synchronized (mLock) {
+            mCurrent.addTrackReidentified(nowMillis);
+            handOffIfDue(nowMillis);
+        }
+    }
+
+    public void onTrackEnded(long durationMillis, long nowMillis) {
+        synchronized (mLock) {
+            mCurrent.addTrackEnded(durationMillis, nowMillis);
+            handOffIfDue(nowMillis);
+        }
+    }
+
+    /**
+     * @param latencyNanos time from the frame reaching the detector to the cue, or a negative
+     *     value if unknown
+     */
+    public void onCuePlayed(long latencyNanos, long nowMillis) {
+        synchronized (mLock) {
+            mCurrent.addCuePlayed(latencyNanos < 0 ? -1 : latencyNanos / 1000, nowMillis);
+            handOffIfDue(nowMillis);
+        }
+    }
+
+    /**
+     * Hands the current batch to the writer, e.g. when the app goes to the background.  Does not
+     * wait for it to be written.
+     */
+    public void flush(long nowMillis) {
+        synchronized (mLock) {
+            handOff(nowMillis);
+        }
+    }
+
+    /**
+     * Writes the current batch, stops the writer thread and closes the store, waiting at most
+     * {@code timeoutMillis} for the writer to finish.  Events recorded afterwards are dropped.
+     *
+     * @return true if everything was written in time
+     */
+    public boolean close(long timeoutMillis) {
+        synchronized (mLock) {
+            if (!mCurrent.isEmpty()) {
+                mPending.add(mCurrent);
+                // Later events go to a batch that is never written.
+                mCurrent = new AnalyticsBatch();
+            }
+            mClosing = true;
+            mLock.notifyAll();
+        }
+        try {
+            mWriterThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !mWriterThread.isAlive();
+    }
+
+    /**
+     * Returns the number of batches written to the store.
+     */
+    public long getBatchesWritten() {
+        return mBatchesWritten;
+    }
+
+    /**
+     * Returns the number of batches kept open past their interval because the writer was behind.
+     */
+    public long getCoalescedBatches() {
+        synchronized (mLock) {
+            return mCoalescedBatches;
+        }
+    }
+
+    public long getWriteErrors() {
+        return mWriteErrors;
+    }
+
+    /**
+     * Returns the last error of the store, or null.
+     */
+    public IOException getLastError() {
+        return mLastError;
+    }
+
+    private void handOffIfDue(long nowMillis) {
+        if (nowMillis - mCurrent.getStartMillis() >= mBatchIntervalMillis) {
+            handOff(nowMillis);
+        }
+    }
+
+    private void handOff(long nowMillis) {
+        if (mClosing || mCurrent.isEmpty()) {
+            return;
+        }
+        AnalyticsBatch next = mFree.poll();
+        if (next == null) {
+            // Writer behind: keep coalescing into the current batch.
+            if (!mCurrentCoalesced) {
+                mCurrentCoalesced = true;
+                mCoalescedBatches++;
+            }
+            return;
+        }
+        mPending.add(mCurrent);
+        next.reset(nowMillis);
+        mCurrent = next;
+        mCurrentCoalesced = false;
+        mLock.notifyAll();
+    }
+
+    private void writeBatches() {
+        while (true) {
+            AnalyticsBatch batch;
+            boolean last;
+            synchronized (mLock) {
+                while (mPending.isEmpty() && !mClosing) {
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException e) {
+                        // Only close() stops the writer.
+                    }
+                }
+                batch = mPending.poll();
+                if (batch == null) {
+                    break;
+                }
+                last = mPending.isEmpty();
+            }
+
+            try {
+                mStore.write(batch);
+                if (last) {
+                    mStore.flush();
+                }
+                mBatchesWritten++;
+            } catch (IOException e) {
+                mWriteErrors++;
+                mLastError = e;
+            }
+
+            synchronized (mLock) {
+                mFree.push(batch);
+            }
+        }
+
+        try {
+            mStore.close();
+        } catch (IOException e) {
+            mWriteErrors++;
+            mLastError = e;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.audio;
+
+/**
+ * The subset of the spatial audio engine used by the face trackers.  The app uses an adapter over
+ * {@code GvrAudioEngine}; {@link RecordingAudioEngine} stands in for it on the JVM.<p>
+ *
+ * Sound objects follow the GVR model: they are created from a preloaded file, played once or in
+ * a loop, and destroyed when stopped or when a non looped playback ends.
+ */
+public interface AudioEngine {
+    /**
+     * Id returned when a sound object could not be created.
+     */
+    int INVALID_ID = -1;
+
+    /**
+     * Decodes a sound file ahead of time so that creating sound objects from it is fast.
+     *
+     * @return true if the file was loaded
+     */
+    boolean preloadSoundFile(String filename);
+
+    /**
+     * Creates a sound object for a preloaded file.
+     *
+     * @return the sound object id, or {@link #INVALID_ID}
+     */
+    int createSoundObject(String filename);
+
+    void setSoundObjectPosition(int sourceId, float x, float y, float z);
+
+    /**
+     * Sets a linear distance rolloff between the given distances.
+     */
+    void setSoundObjectLinearRolloff(int sourceId, float minDistance, float maxDistance);
+
+    void setSoundVolume(int sourceId, float volume);
+
+    void playSound(int sourceId, boolean loopingEnabled);
+
+    /**
+     * Stops the sound and destroys the sound object.
+     */
+    void stopSound(int sourceId);
+
+    boolean isSoundPlaying(int sourceId);
+
+    void setHeadPosition(float x, float y, float z);
+
+    void setHeadRotation(float x, float y, float z, float w);
+
+    /**
+     * Regular update call, to be made at the audio tick rate.
+     */
+    void update();
+
+    void pause();
+
+    void resume();
+}
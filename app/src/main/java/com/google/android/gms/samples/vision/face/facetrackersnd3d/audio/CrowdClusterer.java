@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.audio;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.util.IntIntMap;
+
+import java.util.Arrays;
+
+/**
+ * Groups the faces of a frame into clusters by bucketing them into a uniform grid over the
+ * preview frame: occupied cells that touch, including diagonally, are merged with a union-find,
+ * and all faces in a group of touching cells form one cluster, positioned at their centroid.
+ * Two faces on either side of a cell border thus end up in the same cluster, unless the merged
+ * group would span more than {@link #MAX_CLUSTER_CELLS} cells in either direction: a crowd that
+ * fills the frame is split into several clusters instead of chaining into one.  The cell side
+ * follows the mean face width of the frame, so that the grouping does not depend on how close
+ * the crowd stands to the camera.<p>
+ *
+ * Cluster ids are kept stable across frames: each cluster takes the id most of its members had
+ * in the previous frame (majority vote), and only gets a new id when its members were not
+ * clustered before or when a bigger cluster already claimed that id.<p>
+ *
+ * Clustering is linear in the number of faces, and buffers are reused from frame to frame.  Use
+ * {@link #begin()}, {@link #addFace} for each face, then {@link #cluster()}.  Not thread safe.
+ */
+public final class CrowdClusterer {
+    /** Maximum number of cells a cluster spans, horizontally and vertically. */
+    public static final int MAX_CLUSTER_CELLS = 2;
+
+    private static final int NONE = -1;
+    // Bounds the grid, and its buffer, when faces are tiny.
+    private static final int MAX_GRID_CELLS = 32;
+
+    private final float mCellFaceWidths;
+    private int mFrameWidth;
+    private int mFrameHeight;
+    private float mCellSize;
+    private int mColumns;
+    private int mRows;
+    // Index into the occupied cells of each grid cell for the current frame, NONE when empty.
+    private int[] mCellSlot = new int[0];
+
+    // Occupied cells of the current frame, with their union-find parent and their cluster.  The
+    // column and row bounds of a group are kept on its root.
+    private int mOccupiedCount;
+    private int[] mOccupiedCell = new int[16];
+    private int[] mOccupiedParent = new int[16];
+    private int[] mOccupiedCluster = new int[16];
+    private int[] mOccupiedMinColumn = new int[16];
+    private int[] mOccupiedMaxColumn = new int[16];
+    private int[] mOccupiedMinRow = new int[16];
+    private int[] mOccupiedMaxRow = new int[16];
+
+    // Faces of the current frame.
+    private int mFaceCount;
+    private int[] mFaceTrackId = new int[16];
+    private float[] mFaceX = new float[16];
+    private float[] mFaceY = new float[16];
+    private float[] mFaceWidth = new float[16];
+    private int[] mFaceCluster = new int[16];
+
+    // Clusters of the current frame.
+    private int mClusterCount;
+    private int[] mClusterId = new int[16];
+    private int[] mClusterSize = new int[16];
+    private float[] mClusterSumX = new float[16];
+    private float[] mClusterSumY = new float[16];
+    private float[] mClusterSumWidth = new float[16];
+    private int[] mVoteCandidate = new int[16];
+    private int[] mVoteCount = new int[16];
+
+    // Cluster id of each track in the previous frame, and ids claimed in this frame.
+    private final IntIntMap mPreviousClusterOfTrack = new IntIntMap();
+    private final IntIntMap mClaimedIds = new IntIntMap();
+    private int mNextClusterId;
+
+    /**
+     * @param cellFaceWidths side of a grid cell, in mean face widths of the frame
+     */
+    public CrowdClusterer(float cellFaceWidths) {
+        mCellFaceWidths = cellFaceWidths;
+    }
+
+    /**
+     * Sets the preview frame size the grid covers.
+     */
+    public void setFrameSize(int width, int height) {
+        mFrameWidth = width;
+        mFrameHeight = height;
+        // Room for the finest grid; rounding up may add a column or a row.
+        if (mCellSlot.length == 0) {
+            mCellSlot = new int[(MAX_GRID_CELLS + 1) * (MAX_GRID_CELLS + 1)];
+        }
+        Arrays.fill(mCellSlot, NONE);
+        mOccupiedCount = 0;
+    }
+
+    /**
+     * Starts a new frame.
+     */
+    public void begin() {
+        // Only the cells used by the previous frame need resetting.
+        for (int i = 0; i < mOccupiedCount; i++) {
+            mCellSlot[mOccupiedCell[i]] = NONE;
+        }
+        mOccupiedCount = 0;
+        mFaceCount = 0;
+        mClusterCount = 0;
+    }
+
+    /**
+     * Adds a face to the current frame.
+     *
+     * @param trackId id of the face track
+     * @param centerX face centre, in preview coordinates
+     * @param centerY face centre, in preview coordinates
+     * @param width face width, in preview coordinates
+     */
+    public void addFace(int trackId, float centerX, float centerY, float width) {
+        if (mFaceCount == mFaceTrackId.length) {
+            int capacity = mFaceCount * 2;
+            mFaceTrackId = Arrays.copyOf(mFaceTrackId, capacity);
+            mFaceX = Arrays.copyOf(mFaceX, capacity);
+            mFaceY = Arrays.copyOf(mFaceY, capacity);
+            mFaceWidth = Arrays.copyOf(mFaceWidth, capacity);
+            mFaceCluster = Arrays.copyOf(mFaceCluster, capacity);
+        }
+        mFaceTrackId[mFaceCount] = trackId;
+        mFaceX[mFaceCount] = centerX;
+        mFaceY[mFaceCount] = centerY;
+        mFaceWidth[mFaceCount] = width;
+        mFaceCount++;
+    }
+
+    /**
+     * Clusters the faces added since {@link #begin()}.
+     */
+    public void cluster() {
+        if (mCellSlot.length == 0) {
+            throw new IllegalStateException("setFrameSize() must be called first");
+        }
+
+        // Size the grid after the faces of this frame.
+        float sumWidth = 0.0f;
+        for (int f = 0; f < mFaceCount; f++) {
+            sumWidth += mFaceWidth[f];
+        }
+        float minCellSize = (float) Math.max(mFrameWidth, mFrameHeight) / MAX_GRID_CELLS;
+        mCellSize = mFaceCount > 0
+                ? Math.max(minCellSize, mCellFaceWidths * sumWidth / mFaceCount) : minCellSize;
+        mColumns = Math.max(1, (int) Math.ceil(mFrameWidth / mCellSize));
+        mRows = Math.max(1, (int) Math.ceil(mFrameHeight / mCellSize));
+
+        // Bucket faces into cells.
+        for (int f = 0; f < mFaceCount; f++) {
+            int cell = cellOf(mFaceX[f], mFaceY[f]);
+            int slot = mCellSlot[cell];
+            if (slot == NONE) {
+                slot = occupy(cell);
+            }
+            mFaceCluster[f] = slot;
+        }
+
+        // Merge each occupied cell with its occupied neighbours, as long as the group stays
+        // within the maximum extent.  Looking at the cells before it in row-major order (left,
+        // and the three above) covers every pair of neighbours once.
+        for (int slot = 0; slot < mOccupiedCount; slot++) {
+            int cell = mOccupiedCell[slot];
+            int column = cell % mColumns;
+            if (column > 0) {
+                union(slot, mCellSlot[cell - 1]);
+            }
+            if (cell >= mColumns) {
+                int above = cell - mColumns;
+                union(slot, mCellSlot[above]);
+                if (column > 0) {
+                    union(slot, mCellSlot[above - 1]);
+                }
+                if (column < mColumns - 1) {
+                    union(slot, mCellSlot[above + 1]);
+                }
+            }
+        }
+
+        // One cluster per group of touching cells.
+        for (int slot = 0; slot < mOccupiedCount; slot++) {
+            mOccupiedCluster[slot] = NONE;
+        }
+        for (int slot = 0; slot < mOccupiedCount; slot++) {
+            int root = find(slot);
+            if (mOccupiedCluster[root] == NONE) {
+                mOccupiedCluster[root] = newCluster();
+            }
+            mOccupiedCluster[slot] = mOccupiedCluster[root];
+        }
+
+        // Sum up each cluster's faces, and run a streaming majority vote over the previous
+        // cluster ids of its members.
+        for (int f = 0; f < mFaceCount; f++) {
+            int c = mOccupiedCluster[mFaceCluster[f]];
+            mFaceCluster[f] = c;
+            mClusterSize[c]++;
+            mClusterSumX[c] += mFaceX[f];
+            mClusterSumY[c] += mFaceY[f];
+            mClusterSumWidth[c] += mFaceWidth[f];
+
+            int previous = mPreviousClusterOfTrack.get(mFaceTrackId[f], NONE);
+            if (previous != NONE) {
+                if (mVoteCount[c] == 0) {
+                    mVoteCandidate[c] = previous;
+                    mVoteCount[c] = 1;
+                } else if (mVoteCandidate[c] == previous) {
+                    mVoteCount[c]++;
+                } else {
+                    mVoteCount[c]--;
+                }
+            }
+        }
+
+        // Each previous id goes to the cluster with the strongest vote for it.
+        mClaimedIds.clear();
+        for (int c = 0; c < mClusterCount; c++) {
+            if (mVoteCount[c] > 0) {
+                int other = mClaimedIds.get(mVoteCandidate[c], NONE);
+                if (other == NONE || mVoteCount[c] > mVoteCount[other]) {
+                    mClaimedIds.put(mVoteCandidate[c], c);
+                }
+            }
+        }
+        for (int c = 0; c < mClusterCount; c++) {
+            if (mVoteCount[c] > 0 && mClaimedIds.get(mVoteCandidate[c], NONE) == c) {
+                mClusterId[c] = mVoteCandidate[c];
+            } else {
+                mClusterId[c] = mNextClusterId++;
+            }
+        }
+
+        // Remember the cluster of each track for the next frame.
+        mPreviousClusterOfTrack.clear();
+        for (int f = 0; f < mFaceCount; f++) {
+            mPreviousClusterOfTrack.put(mFaceTrackId[f], mClusterId[mFaceCluster[f]]);
+        }
+    }
+
+    public int getClusterCount() {
+        return mClusterCount;
+    }
+
+    /**
+     * Returns the stable id of a cluster.
+     */
+    public int getClusterId(int cluster) {
+        return mClusterId[cluster];
+    }
+
+    /**
+     * Returns the number of faces in a cluster.
+     */
+    public int getClusterSize(int cluster) {
+        return mClusterSize[cluster];
+    }
+
+    public float getClusterCenterX(int cluster) {
+        return mClusterSumX[cluster] / mClusterSize[cluster];
+    }
+
+    public float getClusterCenterY(int cluster) {
+        return mClusterSumY[cluster] / mClusterSize[cluster];
+    }
+
+    public float getClusterMeanWidth(int cluster) {
+        return mClusterSumWidth[cluster] / mClusterSize[cluster];
+    }
+
+    private int cellOf(float x, float y) {
+        int column = Math.min(mColumns - 1, Math.max(0, (int) (x / mCellSize)));
+        int row = Math.min(mRows - 1, Math.max(0, (int) (y / mCellSize)));
+        return row * mColumns + column;
+    }
+
+    private int occupy(int cell) {
+        if (mOccupiedCount == mOccupiedCell.length) {
+            int capacity = mOccupiedCount * 2;
+            mOccupiedCell = Arrays.copyOf(mOccupiedCell, capacity);
+            mOccupiedParent = Arrays.copyOf(mOccupiedParent, capacity);
+            mOccupiedCluster = Arrays.copyOf(mOccupiedCluster, capacity);
+            mOccupiedMinColumn = Arrays.copyOf(mOccupiedMinColumn, capacity);
+            mOccupiedMaxColumn = Arrays.copyOf(mOccupiedMaxColumn, capacity);
+            mOccupiedMinRow = Arrays.copyOf(mOccupiedMinRow, capacity);
+            mOccupiedMaxRow = Arrays.copyOf(mOccupiedMaxRow, capacity);
+        }
+        int slot = mOccupiedCount++;
+        mCellSlot[cell] = slot;
+        mOccupiedCell[slot] = cell;
+        mOccupiedParent[slot] = slot;
+        mOccupiedMinColumn[slot] = cell % mColumns;
+        mOccupiedMaxColumn[slot] = mOccupiedMinColumn[slot];
+        mOccupiedMinRow[slot] = cell / mColumns;
+        mOccupiedMaxRow[slot] = mOccupiedMinRow[slot];
+        return slot;
+    }
+
+    private int find(int slot) {
+        int root = slot;
+        while (mOccupiedParent[root] != root) {
+            root = mOccupiedParent[root];
+        }
+        // Path compression.
+        while (mOccupiedParent[slot] != root) {
+            int next = mOccupiedParent[slot];
+            mOccupiedParent[slot] = root;
+            slot = next;
+        }
+        return root;
+    }
+
+    /**
+     * Merges the groups of two occupied cells, unless the merged group would span more than
+     * {@link #MAX_CLUSTER_CELLS} cells; {@code other} may be {@link #NONE} for an empty cell.
+     */
+    private void union(int slot, int other) {
+        if (other == NONE) {
+            return;
+        }
+        int a = find(slot);
+        int b = find(other);
+        if (a == b) {
+            return;
+        }
+        int minColumn = Math.min(mOccupiedMinColumn[a], mOccupiedMinColumn[b]);
+        int maxColumn = Math.max(mOccupiedMaxColumn[a], mOccupiedMaxColumn[b]);
+        int minRow = Math.min(mOccupiedMinRow[a], mOccupiedMinRow[b]);
+        int maxRow = Math.max(mOccupiedMaxRow[a], mOccupiedMaxRow[b]);
+        if (maxColumn - minColumn >= MAX_CLUSTER_CELLS || maxRow - minRow >= MAX_CLUSTER_CELLS) {
+            return;
+        }
+        int root = Math.min(a, b);
+        mOccupiedParent[Math.max(a, b)] = root;
+        mOccupiedMinColumn[root] = minColumn;
+        mOccupiedMaxColumn[root] = maxColumn;
+        mOccupiedMinRow[root] = minRow;
+        mOccupiedMaxRow[root] = maxRow;
+    }
+
+    private int newCluster() {
+        if (mClusterCount == mClusterId.length) {
+            int capacity = mClusterCount * 2;
+            mClusterId = Arrays.copyOf(mClusterId, capacity);
+            mClusterSize = Arrays.copyOf(mClusterSize, capacity);
+            mClusterSumX = Arrays.copyOf(mClusterSumX, capacity);
+            mClusterSumY = Arrays.copyOf(mClusterSumY, capacity);
+            mClusterSumWidth = Arrays.copyOf(mClusterSumWidth, capacity);
+            mVoteCandidate = Arrays.copyOf(mVoteCandidate, capacity);
+            mVoteCount = Arrays.copyOf(mVoteCount, capacity);
+        }
+        int c = mClusterCount++;
+        mClusterSize[c] = 0;
+        mClusterSumX[c] = 0.0f;
+        mClusterSumY[c] = 0.0f;
+        mClusterSumWidth[c] = 0.0f;
+        mVoteCount[c] = 0;
+        return c;
+    }
+}
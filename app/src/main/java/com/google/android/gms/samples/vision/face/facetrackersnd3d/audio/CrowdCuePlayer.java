@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.audio;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.util.IntIntMap;
+
+import java.util.Arrays;
+
+/**
+ * Crowd mode: when many faces are in view, plays one looped voice per cluster of nearby faces
+ * instead of one sound per face, so that a busy scene stays legible.  Voices sit at the cluster
+ * centroid and get louder with the number of faces in the cluster.<p>
+ *
+ * Crowd mode turns on when at least {@link #ENTER_FACE_COUNT} faces are in view and off again
+ * at {@link #LEAVE_FACE_COUNT} or fewer, so that a crowd at the threshold does not flip between
+ * modes.  While it is active, the per-face cues should be muted.<p>
+ *
+ * Feed every frame with {@link #begin()}, {@link #addFace} for each face, then
+ * {@link #endFrame(long)}.  Not thread safe: use from the detector thread.
+ */
+public final class CrowdCuePlayer {
+    public static final int ENTER_FACE_COUNT = 4;
+    public static final int LEAVE_FACE_COUNT = 2;
+
+    // Cluster size heard at full loudness, and loudness of a single face.
+    private static final int FULL_LOUDNESS_SIZE = 6;
+    private static final float MIN_LOUDNESS = 0.3f;
+    private static final float MIN_ROLLOFF_DISTANCE = 50.0f;
+    private static final int NONE = -1;
+
+    private final AudioEngine mEngine;
+    private final FaceCueMapper mMapper;
+    private final String mSoundFile;
+    private final CrowdClusterer mClusterer;
+    private boolean mActive;
+    private int mFaceCount;
+
+    // Voices, one per live cluster, densely packed.
+    private int mVoiceCount;
+    private int[] mVoiceClusterId = new int[8];
+    private int[] mVoiceSourceId = new int[8];
+    private boolean[] mVoiceSeen = new boolean[8];
+    private FaceCue[] mVoiceCue = new FaceCue[8];
+    private final IntIntMap mVoiceOfCluster = new IntIntMap();
+
+    /**
+     * @param engine audio engine playing the voices
+     * @param mapper maps cluster positions to sound positions
+     * @param soundFile preloaded sound file played for each cluster
+     * @param cellFaceWidths side of the clustering grid cells, in mean face widths
+     */
+    public CrowdCuePlayer(AudioEngine engine, FaceCueMapper mapper, String soundFile,
+                          float cellFaceWidths) {
+        mEngine = engine;
+        mMapper = mapper;
+        mSoundFile = soundFile;
+        mClusterer = new CrowdClusterer(cellFaceWidths);
+        for (int i = 0; i < mVoiceCue.length; i++) {
+            mVoiceCue[i] = new FaceCue();
+        }
+    }
+
+    /**
+     * Sets the preview frame size covered by the clustering grid.
+     */
+    public void setFrameSize(int width, int height) {
+        mClusterer.setFrameSize(width, height);
+    }
+
+    /**
+     * Returns true while crowd mode is on and per-face cues should be muted.
+     */
+    public boolean isActive() {
+        return mActive;
+    }
+
+    /**
+     * Returns the number of cluster voices currently playing.
+     */
+    public int getVoiceCount() {
+        return mVoiceCount;
+    }
+
+    /**
+     * Starts a new frame.
+     */
+    public void begin() {
+        mClusterer.begin();
+        mFaceCount = 0;
+    }
+
+    /**
+     * Adds a face of the current frame.
+     *
+     * @param trackId id of the face track
+     * @param centerX face centre, in preview coordinates
+     * @param centerY face centre, in preview coordinates
+     * @param width face width, in preview coordinates
+     */
+    public void addFace(int trackId, float centerX, float centerY, float width) {
+        mClusterer.addFace(trackId, centerX, centerY, width);
+        mFaceCount++;
+    }
+
+    /**
+     * Updates crowd mode and the cluster voices for the faces of the current frame.
+     */
+    public void endFrame(long nowMillis) {
+        if (mActive ? mFaceCount <= LEAVE_FACE_COUNT : mFaceCount >= ENTER_FACE_COUNT) {
+            mActive = !mActive;
+        }
+        if (!mActive) {
+            stopAll();
+            return;
+        }
+
+        mClusterer.cluster();
+        for (int c = 0; c < mClusterer.getClusterCount(); c++) {
+            int clusterId = mClusterer.getClusterId(c);
+            int voice = mVoiceOfCluster.get(clusterId, NONE);
+            if (voice == NONE) {
+                voice = startVoice(clusterId);
+                if (voice == NONE) {
+                    continue;
+                }
+            }
+            mVoiceSeen[voice] = true;
+
+            float width = mClusterer.getClusterMeanWidth(c);
+            FaceCue cue = mVoiceCue[voice];
+            mMapper.map(mClusterer.getClusterCenterX(c) - width / 2.0f,
+                    mClusterer.getClusterCenterY(c) - width / 2.0f, width,
+                    Float.NaN, Float.NaN, nowMillis, cue);
+            float loudness = Math.min(1.0f,
+                    (float) mClusterer.getClusterSize(c) / FULL_LOUDNESS_SIZE);
+            int sourceId = mVoiceSourceId[voice];
+            mEngine.setSoundObjectPosition(sourceId, cue.getX(), cue.getY(), cue.getZ());
+            mEngine.setSoundVolume(sourceId, Math.max(MIN_LOUDNESS, loudness));
+        }
+
+        // Stop the voices of clusters that are gone, compacting the voice arrays.
+        for (int voice = mVoiceCount - 1; voice >= 0; voice--) {
+            if (mVoiceSeen[voice]) {
+                mVoiceSeen[voice] = false;
+            } else {
+                mEngine.stopSound(mVoiceSourceId[voice]);
+                removeVoice(voice);
+            }
+        }
+    }
+
+    /**
+     * Stops every cluster voice.
+     */
+    public void stopAll() {
+        for (int voice = 0; voice < mVoiceCount; voice++) {
+            mEngine.stopSound(mVoiceSourceId[voice]);
+            mVoiceSeen[voice] = false;
+        }
+        mVoiceCount = 0;
+        mVoiceOfCluster.clear();
+    }
+
+    private int startVoice(int clusterId) {
+        int sourceId = mEngine.createSoundObject(mSoundFile);
+        if (sourceId == AudioEngine.INVALID_ID) {
+            return NONE;
+        }
+        mEngine.setSoundObjectLinearRolloff(sourceId, MIN_ROLLOFF_DISTANCE,
+                FaceCueMapper.FACE_WIDTH_MAX);
+        mEngine.playSound(sourceId, true /* looped playback */);
+
+        if (mVoiceCount == mVoiceClusterId.length) {
+            int capacity = mVoiceCount * 2;
+            mVoiceClusterId = Arrays.copyOf(mVoiceClusterId, capacity);
+            mVoiceSourceId = Arrays.copyOf(mVoiceSourceId, capacity);
+            mVoiceSeen = Arrays.copyOf(mVoiceSeen, capacity);
+            mVoiceCue = Arrays.copyOf(mVoiceCue, capacity);
+            for (int i = mVoiceCount; i < capacity; i++) {
+                mVoiceCue[i] = new FaceCue();
+            }
+        }
+        int voice = mVoiceCount++;
+        mVoiceClusterId[voice] = clusterId;
+        mVoiceSourceId[voice] = sourceId;
+        mVoiceSeen[voice] = false;
+        mVoiceCue[voice].reset();
+        mVoiceOfCluster.put(clusterId, voice);
+        return voice;
+    }
+
+    private void removeVoice(int voice) {
+        mVoiceOfCluster.remove(mVoiceClusterId[voice]);
+        int last = --mVoiceCount;
+        if (voice != last) {
+            mVoiceClusterId[voice] = mVoiceClusterId[last];
+            mVoiceSourceId[voice] = mVoiceSourceId[last];
+            mVoiceSeen[voice] = mVoiceSeen[last];
+            FaceCue cue = mVoiceCue[voice];
+            mVoiceCue[voice] = mVoiceCue[last];
+            mVoiceCue[last] = cue;
+            mVoiceOfCluster.put(mVoiceClusterId[voice], voice);
+        }
+    }
+}
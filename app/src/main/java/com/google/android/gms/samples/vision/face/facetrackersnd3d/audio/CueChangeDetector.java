@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.audio;
+
+/**
+ * Decides, per track and per frame, whether the audio engine needs to hear about a cue: a
+ * position update when the cue moved, or a new playback when it changed a lot or kept moving
+ * without one for long.  A still cue is never replayed on a timeout, so static faces cost no
+ * engine calls.<p>
+ *
+ * Position updates use hysteresis against jitter: a still cue must move further than the enter
+ * distance from its last pushed position to start moving; a moving cue is pushed whenever it
+ * moves further than the smaller exit distance, and becomes still again after
+ * {@link #STILL_FRAMES} frames without a push.  Distances are in cue coordinates.  Pushes are
+ * at least a push interval apart, and carry the gain only when it changed by more than the gain
+ * threshold, see {@link #isGainChanged}.<p>
+ *
+ * Not thread safe: one instance per track, used from the detector thread.
+ */
+public final class CueChangeDetector {
+    /** Flag returned by {@link #update}: the cue position or gain should be pushed. */
+    public static final int MOVED = 1;
+    /** Flag returned by {@link #update}: the cue should be played again. */
+    public static final int RETRIGGER = 2;
+
+    /** Frames without a push after which a moving cue is still again. */
+    public static final int STILL_FRAMES = 5;
+
+    private static final float DEFAULT_ENTER_DISTANCE = 32.0f;
+    private static final float DEFAULT_EXIT_DISTANCE = 16.0f;
+    private static final float DEFAULT_RETRIGGER_DISTANCE = 120.0f;
+    private static final float DEFAULT_GAIN_THRESHOLD = 0.1f;
+    private static final float DEFAULT_RETRIGGER_GAIN = 0.3f;
+    private static final long DEFAULT_RETRIGGER_TIMEOUT_MILLIS = 3000;
+    private static final long DEFAULT_PUSH_INTERVAL_MILLIS = 100;
+
+    private final float mEnterDistanceSq;
+    private final float mExitDistanceSq;
+    private final float mRetriggerDistanceSq;
+    private final float mGainThreshold;
+    private final float mRetriggerGain;
+    private final long mRetriggerTimeoutMillis;
+    private final long mPushIntervalMillis;
+
+    private boolean mMoving;
+    private int mStillFrames;
+    private float mPushedX;
+    private float mPushedY;
+    private float mPushedZ;
+    private float mPushedGain;
+    private long mPushedMillis;
+
+    private boolean mPlayed;
+    private float mPlayedX;
+    private float mPlayedY;
+    private float mPlayedZ;
+    private float mPlayedGain;
+    private long mPlayedMillis;
+
+    /**
+     * Creates a detector with the defaults used by the app: 32 then 16 units, or a 0.1 gain
+     * change, to push, at most every 100 ms; 120 units or a 0.3 gain change to replay; a replay
+     * at least every 3 s while moving.
+     */
+    public CueChangeDetector() {
+        this(DEFAULT_ENTER_DISTANCE, DEFAULT_EXIT_DISTANCE, DEFAULT_RETRIGGER_DISTANCE,
+                DEFAULT_GAIN_THRESHOLD, DEFAULT_RETRIGGER_GAIN, DEFAULT_RETRIGGER_TIMEOUT_MILLIS,
+                DEFAULT_PUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param enterDistance distance a still cue must move to be pushed
+     * @param exitDistance distance a moving cue must move to be pushed
+     * @param retriggerDistance distance from the last playback position that replays the cue
+     * @param gainThreshold gain change that pushes the cue
+     * @param retriggerGain gain change from the last playback that replays the cue
+     * @param retriggerTimeoutMillis time after which a moving cue is replayed even if it did not
+     *     change enough
+     * @param pushIntervalMillis minimum time between two pushes, or between a playback and a push
+     */
+    public CueChangeDetector(float enterDistance, float exitDistance, float retriggerDistance,
+                             float gainThreshold, float retriggerGain,
+                             long retriggerTimeoutMillis, long pushIntervalMillis) {
+        mEnterDistanceSq = enterDistance * enterDistance;
+        mExitDistanceSq = exitDistance * exitDistance;
+        mRetriggerDistanceSq = retriggerDistance * retriggerDistance;
+        mGainThreshold = gainThreshold;
+        mRetriggerGain = retriggerGain;
+        mRetriggerTimeoutMillis = retriggerTimeoutMillis;
+        mPushIntervalMillis = pushIntervalMillis;
+    }
+
+    /**
+     * Compares the cue with what the engine was last told.
+     *
+     * @return a combination of {@link #MOVED} and {@link #RETRIGGER}, zero if the engine is up
+     *     to date.  Always {@link #RETRIGGER} before the first playback.
+     */
+    public int update(FaceCue cue, long nowMillis) {
+        if (!mPlayed) {
+            return RETRIGGER;
+        }
+
+        int changes = 0;
+        float threshold = mMoving ? mExitDistanceSq : mEnterDistanceSq;
+        if (distanceSq(cue, mPushedX, mPushedY, mPushedZ) > threshold || isGainChanged(cue)) {
+            mMoving = true;
+            mStillFrames = 0;
+            // Too early for another push: the change stays pending until the interval elapsed.
+            if (nowMillis - mPushedMillis >= mPushIntervalMillis) {
+                changes |= MOVED;
+            }
+        } else if (mMoving && ++mStillFrames >= STILL_FRAMES) {
+            mMoving = false;
+        }
+
+        if (distanceSq(cue, mPlayedX, mPlayedY, mPlayedZ) > mRetriggerDistanceSq
+                || Math.abs(cue.getGain() - mPlayedGain) > mRetriggerGain
+                || (mMoving && nowMillis - mPlayedMillis >= mRetriggerTimeoutMillis)) {
+            changes |= RETRIGGER;
+        }
+        return changes;
+    }
+
+    /**
+     * Returns true if the cue gain changed by more than the gain threshold since it was last
+     * pushed, i.e. if a push should also set the volume.
+     */
+    public boolean isGainChanged(FaceCue cue) {
+        return Math.abs(cue.getGain() - mPushedGain) > mGainThreshold;
+    }
+
+    /**
+     * Records that the cue position was pushed to the engine, or that it did not need to be
+     * since nothing is playing.
+     *
+     * @param withGain true if the gain was pushed too
+     */
+    public void onPushed(FaceCue cue, boolean withGain, long nowMillis) {
+        mPushedX = cue.getX();
+        mPushedY = cue.getY();
+        mPushedZ = cue.getZ();
+        if (withGain) {
+            mPushedGain = cue.getGain();
+        }
+        mPushedMillis = nowMillis;
+    }
+
+    /**
+     * Records that the cue was played, which also pushes its position and gain.
+     */
+    public void onPlayed(FaceCue cue, long nowMillis) {
+        onPushed(cue, true, nowMillis);
+        mPlayed = true;
+        mPlayedX = mPushedX;
+        mPlayedY = mPushedY;
+        mPlayedZ = mPushedZ;
+        mPlayedGain = mPushedGain;
+        mPlayedMillis = nowMillis;
+    }
+
+    /**
+     * Returns true while the cue is moving, i.e. pushed with the smaller exit distance.
+     */
+    public boolean isMoving() {
+        return mMoving;
+    }
+
+    /**
+     * Forgets the last playback, e.g. when the cue is reused for another track.
+     */
+    public void reset() {
+        mPlayed = false;
+        mMoving = false;
+        mStillFrames = 0;
+    }
+
+    private static float distanceSq(FaceCue cue, float x, float y, float z) {
+        float dx = cue.getX() - x;
+        float dy = cue.getY() - y;
+        float dz = cue.getZ() - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.audio;
+
+/**
+ * Lets audio cues through at most once per interval.  Not thread safe: it is meant to be used
+ * from the detector thread that delivers tracker callbacks.
+ */
+public final class CueRateLimiter {
+    private final long mIntervalMillis;
+    private long mLastCueMillis;
+
+    /**
+     * @param intervalMillis minimum time between two cues
+     * @param nowMillis current time; the first cue is allowed one interval later
+     */
+    public CueRateLimiter(long intervalMillis, long nowMillis) {
+        mIntervalMillis = intervalMillis;
+        mLastCueMillis = nowMillis;
+    }
+
+    /**
+     * Returns true if a cue may be played at {@code nowMillis}, without starting a new interval.
+     */
+    public boolean canAcquire(long nowMillis) {
+        return (nowMillis - mLastCueMillis) > mIntervalMillis;
+    }
+
+    /**
+     * Returns true, and starts a new interval, if a cue may be played at {@code nowMillis}.
+     */
+    public boolean tryAcquire(long nowMillis) {
+        if (canAcquire(nowMillis)) {
+            mLastCueMillis = nowMillis;
+            return true;
+        }
+        return false;
+    }
+}
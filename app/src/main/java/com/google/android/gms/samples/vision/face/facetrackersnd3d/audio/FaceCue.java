@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.audio;
+
+/**
+ * Audio cue for one tracked face: the sound object position and the gain reflecting whether the
+ * person is facing the user.  One instance is kept per track and updated in place every frame by
+ * {@link FaceCueMapper}, which also keeps the gain smoothing state here.
+ */
+public final class FaceCue {
+    float mX;
+    float mY;
+    float mZ;
+    float mGain = 1.0f;
+
+    boolean mHasGain;
+    long mLastTimeMillis;
+
+    public float getX() {
+        return mX;
+    }
+
+    public float getY() {
+        return mY;
+    }
+
+    public float getZ() {
+        return mZ;
+    }
+
+    /**
+     * Returns the smoothed gain, between {@link FaceCueMapper#MIN_GAIN} and 1.
+     */
+    public float getGain() {
+        return mGain;
+    }
+
+    /**
+     * Forgets the smoothing history, e.g. when the cue is reused for another track.
+     */
+    public void reset() {
+        mHasGain = false;
+        mGain = 1.0f;
+    }
+}
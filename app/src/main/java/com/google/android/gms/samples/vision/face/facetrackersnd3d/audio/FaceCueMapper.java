@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.audio;
+
+/**
+ * Maps a detected face to its audio cue.  The position places the sound object relative to the
+ * preview frame centre, with the face width standing in for distance.  The gain is a directivity
+ * pattern driven by the head yaw and roll: a person looking at the camera is heard at full level,
+ * a person looking away is attenuated down to {@link #MIN_GAIN}.<p>
+ *
+ * Position and gain are computed together, once per face per frame, and written into a reused
+ * {@link FaceCue} so the per-frame path does not allocate.
+ */
+public final class FaceCueMapper {
+    /**
+     * Gain of a face turned fully away from the camera.
+     */
+    public static final float MIN_GAIN = 0.25f;
+
+    // Sharpness of the yaw directivity lobe (cosine raised to this power).
+    private static final float DIRECTIVITY_ORDER = 2.0f;
+    // Share of the gain that a fully rolled head loses.
+    private static final float ROLL_ATTENUATION = 0.3f;
+    // Time constant of the gain smoothing.
+    private static final float GAIN_TIME_CONSTANT_MS = 150.0f;
+
+    // Nexus 4
+    private static final float FACE_POS_MIN_X = -126.7699f;
+    private static final float FACE_POS_MIN_Y = -100.79914f;
+    private static final float FACE_POS_MAX_X = 394.55118f;
+    private static final float FACE_POS_MAX_Y = 528.54156f;
+    public static final float FACE_WIDTH_MAX = 470.39392f;
+    private static final float FACE_POS_MOY_X = (Math.abs(FACE_POS_MAX_X) + Math.abs(FACE_POS_MIN_X)) / 2.0f;
+    private static final float FACE_POS_MOY_Y = (Math.abs(FACE_POS_MAX_Y) + Math.abs(FACE_POS_MIN_Y)) / 2.0f;
+    private static final float CENTER_X = FACE_POS_MIN_X + FACE_POS_MOY_X;
+    private static final float CENTER_Y = FACE_POS_MIN_Y + FACE_POS_MOY_Y;
+
+    /**
+     * Updates {@code cue} from the face geometry and orientation.
+     *
+     * @param x face position (top left), in preview coordinates
+     * @param y face position (top left), in preview coordinates
+     * @param width face width, in preview coordinates
+     * @param eulerY head yaw in degrees, NaN if unknown
+     * @param eulerZ head roll in degrees, NaN if unknown
+     * @param timeMillis time of the frame, used for gain smoothing
+     * @param cue cue to update in place
+     */
+    public void map(float x, float y, float width, float eulerY, float eulerZ, long timeMillis,
+                    FaceCue cue) {
+        cue.mX = x - CENTER_X;
+        cue.mY = width - FACE_WIDTH_MAX;
+        cue.mZ = y - CENTER_Y;
+
+        float target = directivityGain(eulerY, eulerZ);
+        if (!cue.mHasGain) {
+            cue.mGain = target;
+            cue.mHasGain = true;
+        } else {
+            long dt = timeMillis - cue.mLastTimeMillis;
+            if (dt > 0) {
+                float alpha = 1.0f - (float) Math.exp(-dt / GAIN_TIME_CONSTANT_MS);
+                cue.mGain += (target - cue.mGain) * alpha;
+            }
+        }
+        cue.mLastTimeMillis = timeMillis;
+    }
+
+    /**
+     * Returns the unsmoothed gain for the given head yaw and roll, in degrees.  Unknown angles
+     * are treated as facing the camera.
+     */
+    static float directivityGain(float eulerY, float eulerZ) {
+        float facing = 1.0f;
+        if (!Float.isNaN(eulerY)) {
+            double cosYaw = Math.cos(Math.toRadians(eulerY));
+            facing = cosYaw <= 0.0 ? 0.0f : (float) Math.pow(cosYaw, DIRECTIVITY_ORDER);
+        }
+        if (!Float.isNaN(eulerZ)) {
+            float sinRoll = (float) Math.abs(Math.sin(Math.toRadians(eulerZ)));
+            facing *= 1.0f - ROLL_ATTENUATION * sinRoll;
+        }
+        return MIN_GAIN + (1.0f - MIN_GAIN) * facing;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.audio;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * In-memory {@link AudioEngine} for running the tracker logic on the JVM.  It counts every call,
+ * keeps track of live sound objects so that leaks show up, and can burn a fixed amount of CPU per
+ * call to stand in for the cost of the real engine.<p>
+ *
+ * Playback time follows a simulated clock set with {@link #setTimeMillis(long)}: a non looped
+ * sound stops playing, and its sound object is destroyed, one clip duration after it started.
+ */
+public final class RecordingAudioEngine implements AudioEngine {
+    /**
+     * Engine calls, as counted by {@link #getCallCount(Call)}.
+     */
+    public enum Call {
+        PRELOAD_SOUND_FILE,
+        CREATE_SOUND_OBJECT,
+        SET_SOUND_OBJECT_POSITION,
+        SET_SOUND_OBJECT_ROLLOFF,
+        SET_SOUND_VOLUME,
+        PLAY_SOUND,
+        STOP_SOUND,
+        IS_SOUND_PLAYING,
+        SET_HEAD_POSITION,
+        SET_HEAD_ROTATION,
+        UPDATE,
+        PAUSE,
+        RESUME
+    }
+
+    private static final class SoundObject {
+        boolean mPlaying;
+        boolean mLooping;
+        long mEndMillis;
+    }
+
+    private final long mCallCostNanos;
+    private final long mClipDurationMillis;
+
+    private final long[] mCalls = new long[Call.values().length];
+    private final Map<Integer, SoundObject> mSoundObjects = new HashMap<>();
+    private int mNextId;
+    private long mCreatedSoundObjects;
+    private int mPeakSoundObjects;
+    private long mTimeMillis;
+
+    /**
+     * @param callCostNanos CPU time burnt by every call, to simulate the engine cost
+     * @param clipDurationMillis duration of a non looped playback
+     */
+    public RecordingAudioEngine(long callCostNanos, long clipDurationMillis) {
+        mCallCostNanos = callCostNanos;
+        mClipDurationMillis = clipDurationMillis;
+    }
+
+    /**
+     * Advances the simulated clock used for playback.
+     */
+    public synchronized void setTimeMillis(long timeMillis) {
+        mTimeMillis = timeMillis;
+    }
+
+    public synchronized long getCallCount(Call call) {
+        return mCalls[call.ordinal()];
+    }
+
+    public synchronized long getTotalCalls() {
+        long total = 0;
+        for (long calls : mCalls) {
+            total += calls;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of sound objects created and not yet destroyed.
+     */
+    public synchronized int getLiveSoundObjects() {
+        expireSounds();
+        return mSoundObjects.size();
+    }
+
+    public synchronized int getPeakSoundObjects() {
+        return mPeakSoundObjects;
+    }
+
+    public synchronized long getCreatedSoundObjects() {
+        return mCreatedSoundObjects;
+    }
+
+    @Override
+    public synchronized boolean preloadSoundFile(String filename) {
+        record(Call.PRELOAD_SOUND_FILE);
+        return true;
+    }
+
+    @Override
+    public synchronized int createSoundObject(String filename) {
+        record(Call.CREATE_SOUND_OBJECT);
+        int id = mNextId++;
+        mSoundObjects.put(id, new SoundObject());
+        mCreatedSoundObjects++;
+        mPeakSoundObjects = Math.max(mPeakSoundObjects, mSoundObjects.size());
+        return id;
+    }
+
+    @Override
+    public synchronized void setSoundObjectPosition(int sourceId, float x, float y, float z) {
+        record(Call.SET_SOUND_OBJECT_POSITION);
+    }
+
+    @Override
+    public synchronized void setSoundObjectLinearRolloff(int sourceId, float minDistance,
+                                                         float maxDistance) {
+        record(Call.SET_SOUND_OBJECT_ROLLOFF);
+    }
+
+    @Override
+    public synchronized void setSoundVolume(int sourceId, float volume) {
+        record(Call.SET_SOUND_VOLUME);
+    }
+
+    @Override
+    public synchronized void playSound(int sourceId, boolean loopingEnabled) {
+        record(Call.PLAY_SOUND);
+        SoundObject sound = mSoundObjects.get(sourceId);
+        if (sound != null) {
+            sound.mPlaying = true;
+            sound.mLooping = loopingEnabled;
+            sound.mEndMillis = mTimeMillis + mClipDurationMillis;
+        }
+    }
+
+    @Override
+    public synchronized void stopSound(int sourceId) {
+        record(Call.STOP_SOUND);
+        mSoundObjects.remove(sourceId);
+    }
+
+    @Override
+    public synchronized boolean isSoundPlaying(int sourceId) {
+        record(Call.IS_SOUND_PLAYING);
+        SoundObject sound = mSoundObjects.get(sourceId);
+        if (sound == null) {
+            return false;
+        }
+        if (hasEnded(sound)) {
+            mSoundObjects.remove(sourceId);
+            return false;
+        }
+        return sound.mPlaying;
+    }
+
+    @Override
+    public synchronized void setHeadPosition(float x, float y, float z) {
+        record(Call.SET_HEAD_POSITION);
+    }
+
+    @Override
+    public synchronized void setHeadRotation(float x, float y, float z, float w) {
+        record(Call.SET_HEAD_ROTATION);
+    }
+
+    @Override
+    public synchronized void update() {
+        record(Call.UPDATE);
+        expireSounds();
+    }
+
+    @Override
+    public synchronized void pause() {
+        record(Call.PAUSE);
+    }
+
+    @Override
+    public synchronized void resume() {
+        record(Call.RESUME);
+    }
+
+    private void record(Call call) {
+        mCalls[call.ordinal()]++;
+        if (mCallCostNanos > 0) {
+            long end = System.nanoTime() + mCallCostNanos;
+            while (System.nanoTime() < end) {
+                // Busy wait to simulate engine work on the calling thread.
+            }
+        }
+    }
+
+    private void expireSounds() {
+        Iterator<SoundObject> it = mSoundObjects.values().iterator();
+        while (it.hasNext()) {
+            if (hasEnded(it.next())) {
+                it.remove();
+            }
+        }
+    }
+
+    private boolean hasEnded(SoundObject sound) {
+        return sound.mPlaying && !sound.mLooping && sound.mEndMillis <= mTimeMillis;
+    }
+}
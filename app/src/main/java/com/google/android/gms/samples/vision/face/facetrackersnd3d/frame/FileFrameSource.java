@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.frame;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.lifecycle.TrackedThread;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link FrameSource} replaying NV21 frames recorded back to back in a file, e.g. with
+ * {@code ffmpeg -pix_fmt nv21 -f rawvideo}, at a fixed frame rate.  Lets the detector pipeline
+ * run on known input without a camera.
+ */
+public final class FileFrameSource implements FrameSource {
+    private static final String THREAD_NAME = "FileFrameSource";
+    private static final int POOL_CAPACITY = 3;
+
+    private final File mFile;
+    private final int mWidth;
+    private final int mHeight;
+    private final long mFramePeriodNanos;
+    private final boolean mLoop;
+    private final FrameBufferPool mPool;
+
+    private Thread mThread;
+    private volatile boolean mRunning;
+    private volatile IOException mError;
+
+    /**
+     * @param fps frames per second to replay at, or zero to replay as fast as the file can be
+     *     read, dropping the frames the consumer is too slow for
+     * @param loop whether to start over at the end of the file
+     */
+    public FileFrameSource(File file, int width, int height, float fps, boolean loop) {
+        mFile = file;
+        mWidth = width;
+        mHeight = height;
+        mFramePeriodNanos = fps > 0 ? (long) (1e9 / fps) : 0;
+        mLoop = loop;
+        mPool = new FrameBufferPool(POOL_CAPACITY, width, height);
+    }
+
+    @Override
+    public void start(final LatestFrameExchange output) throws IOException {
+        if (mThread != null) {
+            return;
+        }
+        final FileChannel channel = new FileInputStream(mFile).getChannel();
+        if (channel.size() < mPool.getBufferSize()) {
+            channel.close();
+            throw new IOException(mFile + " does not hold a " + mWidth + "x" + mHeight
+                    + " frame");
+        }
+
+        mError = null;
+        mRunning = true;
+        mThread = new TrackedThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    replay(channel, output);
+                } catch (IOException e) {
+                    mError = e;
+                } finally {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        // Read only: nothing was lost.
+                    }
+                }
+            }
+        }, THREAD_NAME);
+        mThread.start();
+    }
+
+    @Override
+    public void stop() {
+        if (mThread == null) {
+            return;
+        }
+        // Not interrupted: that would close the channel under a read.  The thread notices within
+        // a frame period.
+        mRunning = false;
+        try {
+            mThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mThread = null;
+    }
+
+    /**
+     * Returns true while frames are being replayed, false once stopped or past the end of the
+     * file.
+     */
+    public boolean isRunning() {
+        return mThread != null && mThread.isAlive();
+    }
+
+    /**
+     * Returns the error that stopped the replay, or null.
+     */
+    public IOException getError() {
+        return mError;
+    }
+
+    @Override
+    public FrameBufferPool getBufferPool() {
+        return mPool;
+    }
+
+    private void replay(FileChannel channel, LatestFrameExchange output) throws IOException {
+        int frameSize = mPool.getBufferSize();
+        int frameId = 0;
+        long deadline = System.nanoTime();
+        while (mRunning) {
+            if (channel.size() - channel.position() < frameSize) {
+                if (!mLoop) {
+                    return;
+                }
+                channel.position(0);
+            }
+
+            FrameBuffer frame = mPool.acquire();
+            if (frame == null) {
+                // Every buffer is in use downstream: the frame is dropped.
+                channel.position(channel.position() + frameSize);
+            } else {
+                ByteBuffer data = frame.getData();
+                while (data.hasRemaining()) {
+                    if (channel.read(data) < 0) {
+                        frame.release();
+                        return;
+                    }
+                }
+                data.flip();
+                frame.setMetadata(mWidth, mHeight, frameId, System.nanoTime(), 0);
+                output.offer(frame);
+            }
+            frameId++;
+
+            if (mFramePeriodNanos > 0) {
+                deadline += mFramePeriodNanos;
+                long sleepNanos = deadline - System.nanoTime();
+                if (sleepNanos > 0) {
+                    try {
+                        Thread.sleep(sleepNanos / 1000000, (int) (sleepNanos % 1000000));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.frame;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An NV21 frame in a direct {@link ByteBuffer} owned by a {@link FrameBufferPool}, with the
+ * metadata the detector needs.  Whoever holds the frame last must {@link #release()} it so that
+ * the buffer is reused.
+ */
+public final class FrameBuffer {
+    private final FrameBufferPool mPool;
+    private final ByteBuffer mData;
+    private int mWidth;
+    private int mHeight;
+    private int mFrameId;
+    private long mTimestampNanos;
+    private int mRotation;
+
+    FrameBuffer(FrameBufferPool pool, int capacity) {
+        mPool = pool;
+        mData = ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Returns the pixel data, from position zero to the end of the frame.
+     */
+    public ByteBuffer getData() {
+        return mData;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Returns the frame number, incremented for every frame produced by the source including
+     * those dropped before detection.
+     */
+    public int getFrameId() {
+        return mFrameId;
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} at which the frame was captured.
+     */
+    public long getTimestampNanos() {
+        return mTimestampNanos;
+    }
+
+    /**
+     * Returns the clockwise rotation to apply to the image to get it upright, in quarter turns as
+     * in {@code Frame.ROTATION_*}.
+     */
+    public int getRotation() {
+        return mRotation;
+    }
+
+    /**
+     * Sets the metadata of the frame held in the buffer.
+     */
+    public void setMetadata(int width, int height, int frameId, long timestampNanos,
+                            int rotation) {
+        mWidth = width;
+        mHeight = height;
+        mFrameId = frameId;
+        mTimestampNanos = timestampNanos;
+        mRotation = rotation;
+    }
+
+    /**
+     * Returns the buffer to its pool.
+     */
+    public void release() {
+        mPool.release(this);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.frame;
+
+import java.util.ArrayDeque;
+
+/**
+ * Fixed set of direct buffers for NV21 frames of a given size, so that a frame source does not
+ * allocate per frame.  Buffers are allocated on first use, up to the capacity; when all of them
+ * are in use, {@link #acquire()} fails and the source should drop the frame.  Thread safe.
+ */
+public final class FrameBufferPool {
+    private final int mCapacity;
+    private final int mWidth;
+    private final int mHeight;
+    private final int mBufferSize;
+    private final ArrayDeque<FrameBuffer> mFree;
+    private int mAllocated;
+
+    private long mAcquireCount;
+    private long mMissCount;
+
+    /**
+     * @param capacity maximum number of buffers; three is enough for one frame being filled, one
+     *     waiting and one being detected
+     */
+    public FrameBufferPool(int capacity, int width, int height) {
+        mCapacity = capacity;
+        mWidth = width;
+        mHeight = height;
+        mBufferSize = nv21Size(width, height);
+        mFree = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Returns the size in bytes of an NV21 frame: full resolution luma followed by interleaved
+     * chroma at half resolution in both directions.
+     */
+    public static int nv21Size(int width, int height) {
+        return width * height + 2 * ((width + 1) / 2) * ((height + 1) / 2);
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public int getBufferSize() {
+        return mBufferSize;
+    }
+
+    /**
+     * Returns a free buffer, cleared and limited to the frame size, or null if all buffers are
+     * in use.
+     */
+    public FrameBuffer acquire() {
+        FrameBuffer buffer;
+        synchronized (mFree) {
+            buffer = mFree.poll();
+            if (buffer == null) {
+                if (mAllocated == mCapacity) {
+                    mMissCount++;
+                    return null;
+                }
+                mAllocated++;
+                buffer = new FrameBuffer(this, mBufferSize);
+            }
+            mAcquireCount++;
+        }
+        buffer.getData().clear();
+        buffer.getData().limit(mBufferSize);
+        return buffer;
+    }
+
+    void release(FrameBuffer buffer) {
+        synchronized (mFree) {
+            mFree.push(buffer);
+        }
+    }
+
+    /**
+     * Returns the number of buffers handed out.
+     */
+    public long getAcquireCount() {
+        synchronized (mFree) {
+            return mAcquireCount;
+        }
+    }
+
+    /**
+     * Returns the number of times no buffer was free.
+     */
+    public long getMissCount() {
+        synchronized (mFree) {
+            return mMissCount;
+        }
+    }
+
+    /**
+     * Returns the number of buffers allocated so far.
+     */
+    public int getAllocatedCount() {
+        synchronized (mFree) {
+            return mAllocated;
+        }
+    }
+
+    /**
+     * Returns the fraction of acquisitions served by a buffer that was used before.
+     */
+    public float getReuseRate() {
+        synchronized (mFree) {
+            return mAcquireCount == 0 ? 0.0f
+                    : (float) (mAcquireCount - mAllocated) / mAcquireCount;
+        }
+    }
+}
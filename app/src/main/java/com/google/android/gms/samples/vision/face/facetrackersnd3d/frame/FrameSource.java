@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.frame;
+
+import java.io.IOException;
+
+/**
+ * Producer of NV21 frames for the detector.  A source fills buffers from its
+ * {@link FrameBufferPool}, stamps them and offers them to a {@link LatestFrameExchange}, from
+ * its own thread.  Frames produced while no buffer is free are dropped and counted by the pool.
+ */
+public interface FrameSource {
+    /**
+     * Starts producing frames into {@code output}.
+     */
+    void start(LatestFrameExchange output) throws IOException;
+
+    /**
+     * Stops producing frames, and waits until the source no longer touches the exchange.
+     */
+    void stop();
+
+    /**
+     * Returns the pool the frames come from, for its reuse and drop statistics, or null before
+     * the first start.
+     */
+    FrameBufferPool getBufferPool();
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.frame;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Crops image data for region of interest detection.
+ */
+public final class ImageCrop {
+    private ImageCrop() {
+    }
+
+    /**
+     * Copies a rectangle of the luma plane of an NV21 or grayscale image to the start of
+     * {@code dst}, row after row.  The chroma of the cropped image is left as is: the face
+     * detector only reads luma.
+     *
+     * @param src image data; its position and limit are changed
+     * @param srcWidth width of the image, i.e. the stride of the luma plane
+     * @param dst buffer of at least {@code width * height} bytes; its position is left after the
+     *     copied luma
+     */
+    public static void cropLuma(ByteBuffer src, int srcWidth, int left, int top, int width,
+                                int height, ByteBuffer dst) {
+        dst.clear();
+        int start = top * srcWidth + left;
+        for (int row = 0; row < height; row++) {
+            src.limit(start + width);
+            src.position(start);
+            dst.put(src);
+            start += srcWidth;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.frame;
+
+/**
+ * Hands frames from a source to the detector thread, keeping only the latest one: a frame that
+ * is still waiting when a newer one arrives is dropped and released.  The detector therefore
+ * always works on the freshest frame, and a slow detector never builds up latency.
+ */
+public final class LatestFrameExchange {
+    private FrameBuffer mPending;
+    private boolean mClosed;
+    private long mOfferedCount;
+    private long mDroppedCount;
+
+    /**
+     * Hands over a frame, dropping the one still waiting if any.  The frame is released right
+     * away if the exchange is closed.
+     */
+    public synchronized void offer(FrameBuffer frame) {
+        if (mClosed) {
+            frame.release();
+            return;
+        }
+        if (mPending != null) {
+            mPending.release();
+            mDroppedCount++;
+        }
+        mPending = frame;
+        mOfferedCount++;
+        notifyAll();
+    }
+
+    /**
+     * Waits for a frame and takes it; the caller must release it.
+     *
+     * @return the latest frame, or null once the exchange is closed
+     */
+    public synchronized FrameBuffer take() throws InterruptedException {
+        while (mPending == null && !mClosed) {
+            wait();
+        }
+        FrameBuffer frame = mPending;
+        mPending = null;
+        return frame;
+    }
+
+    /**
+     * Accepts frames again after {@link #close()}.
+     */
+    public synchronized void open() {
+        mClosed = false;
+    }
+
+    /**
+     * Releases the waiting frame and wakes up the consumer, whose {@link #take()} returns null.
+     */
+    public synchronized void close() {
+        mClosed = true;
+        if (mPending != null) {
+            mPending.release();
+            mPending = null;
+        }
+        notifyAll();
+    }
+
+    public synchronized long getOfferedCount() {
+        return mOfferedCount;
+    }
+
+    /**
+     * Returns the number of frames replaced by a newer one before the consumer took them.
+     */
+    public synchronized long getDroppedCount() {
+        return mDroppedCount;
+    }
+}
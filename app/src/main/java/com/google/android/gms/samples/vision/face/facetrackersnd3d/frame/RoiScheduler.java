@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.frame;
+
+/**
+ * Decides, frame by frame, whether the detector scans the whole frame or only a region of
+ * interest around the faces found in the previous frame.  The region is the union of the face
+ * boxes, each padded by a fraction of its width on every side.  A full scan runs every
+ * {@code fullScanInterval} frames to catch new faces, and whenever no face is known, the region
+ * would cover most of the frame, or a region scan found fewer faces than expected.<p>
+ *
+ * Face boxes are in upright coordinates, as reported by the detector; the region is given both
+ * in raw frame coordinates, for cropping the image data, and as its offset in upright
+ * coordinates, for mapping the faces found in the crop back.  Raw coordinates are even so that
+ * the crop keeps NV21 chroma alignment.  Not thread safe: use from the detector thread.
+ */
+public final class RoiScheduler {
+    private final int mFullScanInterval;
+    private final float mPadding;
+    private final float mMaxRoiFraction;
+
+    private int mRawWidth;
+    private int mRawHeight;
+    private int mRotation;
+
+    // Region of the current frame.
+    private boolean mFullScan;
+    private int mRoiLeft;
+    private int mRoiTop;
+    private int mRoiWidth;
+    private int mRoiHeight;
+    private int mRoiUprightLeft;
+    private int mRoiUprightTop;
+
+    // Faces of the previous frame, as the union of their padded boxes.
+    private int mKnownFaces;
+    private float mKnownLeft;
+    private float mKnownTop;
+    private float mKnownRight;
+    private float mKnownBottom;
+    private boolean mFullScanRequested = true;
+    private int mFramesSinceFullScan;
+
+    // Faces of the current frame.
+    private int mFoundFaces;
+    private float mFoundLeft;
+    private float mFoundTop;
+    private float mFoundRight;
+    private float mFoundBottom;
+
+    private long mFrameCount;
+    private long mFullScanCount;
+    private long mPixelsProcessed;
+
+    /**
+     * @param fullScanInterval at most this many frames between two full scans
+     * @param padding padding around each face, as a fraction of the face width
+     * @param maxRoiFraction region area, as a fraction of the frame area, above which the full
+     *     frame is scanned instead
+     */
+    public RoiScheduler(int fullScanInterval, float padding, float maxRoiFraction) {
+        mFullScanInterval = fullScanInterval;
+        mPadding = padding;
+        mMaxRoiFraction = maxRoiFraction;
+    }
+
+    /**
+     * Starts a frame and chooses the region to scan.
+     *
+     * @param rawWidth width of the image data
+     * @param rawHeight height of the image data
+     * @param rotation clockwise quarter turns making the image upright, as in
+     *     {@code Frame.ROTATION_*}
+     * @return true if the full frame must be scanned, false to scan the region
+     */
+    public boolean beginFrame(int rawWidth, int rawHeight, int rotation) {
+        if (rawWidth != mRawWidth || rawHeight != mRawHeight || rotation != mRotation) {
+            mRawWidth = rawWidth;
+            mRawHeight = rawHeight;
+            mRotation = rotation;
+            mFullScanRequested = true;
+        }
+        mFoundFaces = 0;
+        mFrameCount++;
+
+        mFullScan = mFullScanRequested || mKnownFaces == 0
+                || mFramesSinceFullScan + 1 >= mFullScanInterval
+                || !chooseRegion();
+        if (mFullScan) {
+            mRoiLeft = 0;
+            mRoiTop = 0;
+            mRoiWidth = rawWidth;
+            mRoiHeight = rawHeight;
+            mRoiUprightLeft = 0;
+            mRoiUprightTop = 0;
+            mFramesSinceFullScan = 0;
+            mFullScanRequested = false;
+            mFullScanCount++;
+        } else {
+            mFramesSinceFullScan++;
+        }
+        mPixelsProcessed += (long) mRoiWidth * mRoiHeight;
+        return mFullScan;
+    }
+
+    /**
+     * Adds a face found in the current frame, in upright full frame coordinates.
+     */
+    public void addFace(float left, float top, float width, float height) {
+        float pad = width * mPadding;
+        float faceLeft = left - pad;
+        float faceTop = top - pad;
+        float faceRight = left + width + pad;
+        float faceBottom = top + height + pad;
+        if (mFoundFaces == 0) {
+            mFoundLeft = faceLeft;
+            mFoundTop = faceTop;
+            mFoundRight = faceRight;
+            mFoundBottom = faceBottom;
+        } else {
+            mFoundLeft = Math.min(mFoundLeft, faceLeft);
+            mFoundTop = Math.min(mFoundTop, faceTop);
+            mFoundRight = Math.max(mFoundRight, faceRight);
+            mFoundBottom = Math.max(mFoundBottom, faceBottom);
+        }
+        mFoundFaces++;
+    }
+
+    /**
+     * Ends the frame: its faces define the region of the next one.
+     */
+    public void endFrame() {
+        if (!mFullScan && mFoundFaces < mKnownFaces) {
+            // A face left the region, or was cut by its border.
+            mFullScanRequested = true;
+        }
+        mKnownFaces = mFoundFaces;
+        mKnownLeft = mFoundLeft;
+        mKnownTop = mFoundTop;
+        mKnownRight = mFoundRight;
+        mKnownBottom = mFoundBottom;
+    }
+
+    public boolean isFullScan() {
+        return mFullScan;
+    }
+
+    /**
+     * Returns the left of the region in the image data.
+     */
+    public int getRoiLeft() {
+        return mRoiLeft;
+    }
+
+    public int getRoiTop() {
+        return mRoiTop;
+    }
+
+    public int getRoiWidth() {
+        return mRoiWidth;
+    }
+
+    public int getRoiHeight() {
+        return mRoiHeight;
+    }
+
+    /**
+     * Returns the left of the region in upright coordinates: the horizontal offset to add to
+     * the faces found in the region.
+     */
+    public int getRoiUprightLeft() {
+        return mRoiUprightLeft;
+    }
+
+    public int getRoiUprightTop() {
+        return mRoiUprightTop;
+    }
+
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    public long getFullScanCount() {
+        return mFullScanCount;
+    }
+
+    /**
+     * Returns the number of pixels scanned over all frames.
+     */
+    public long getPixelsProcessed() {
+        return mPixelsProcessed;
+    }
+
+    /**
+     * Maps the known faces region to an even aligned rectangle of the image data.
+     *
+     * @return false if the region is too large to be worth it
+     */
+    private boolean chooseRegion() {
+        // Map two opposite corners from upright to raw coordinates.
+        float x0 = rawX(mKnownLeft, mKnownTop);
+        float y0 = rawY(mKnownLeft, mKnownTop);
+        float x1 = rawX(mKnownRight, mKnownBottom);
+        float y1 = rawY(mKnownRight, mKnownBottom);
+
+        int left = Math.max(0, evenFloor(Math.min(x0, x1)));
+        int top = Math.max(0, evenFloor(Math.min(y0, y1)));
+        int right = Math.min(mRawWidth, evenCeil(Math.max(x0, x1)));
+        int bottom = Math.min(mRawHeight, evenCeil(Math.max(y0, y1)));
+        int width = right - left;
+        int height = bottom - top;
+        if (width <= 0 || height <= 0
+                || (float) width * height > mMaxRoiFraction * mRawWidth * mRawHeight) {
+            return false;
+        }
+
+        mRoiLeft = left;
+        mRoiTop = top;
+        mRoiWidth = width;
+        mRoiHeight = height;
+        // Upright offset of the region: the upright corner of the raw rectangle closest to the
+        // upright origin.
+        switch (mRotation) {
+            case 1:
+                mRoiUprightLeft = mRawHeight - bottom;
+                mRoiUprightTop = left;
+                break;
+            case 2:
+                mRoiUprightLeft = mRawWidth - right;
+                mRoiUprightTop = mRawHeight - bottom;
+                break;
+            case 3:
+                mRoiUprightLeft = top;
+                mRoiUprightTop = mRawWidth - right;
+                break;
+            default:
+                mRoiUprightLeft = left;
+                mRoiUprightTop = top;
+                break;
+        }
+        return true;
+    }
+
+    private float rawX(float uprightX, float uprightY) {
+        switch (mRotation) {
+            case 1:
+                return uprightY;
+            case 2:
+                return mRawWidth - uprightX;
+            case 3:
+                return mRawWidth - uprightY;
+            default:
+                return uprightX;
+        }
+    }
+
+    private float rawY(float uprightX, float uprightY) {
+        switch (mRotation) {
+            case 1:
+                return mRawHeight - uprightX;
+            case 2:
+                return mRawHeight - uprightY;
+            case 3:
+                return uprightX;
+            default:
+                return uprightY;
+        }
+    }
+
+    private static int evenFloor(float value) {
+        return (int) Math.floor(value / 2.0f) * 2;
+    }
+
+    private static int evenCeil(float value) {
+        return (int) Math.ceil(value / 2.0f) * 2;
+    }
+}
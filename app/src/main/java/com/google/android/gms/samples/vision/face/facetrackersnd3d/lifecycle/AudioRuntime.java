@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.lifecycle;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.AudioEngine;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CrowdCuePlayer;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CueRateLimiter;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.FaceCueMapper;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.sensor.HeadRotationFusion;
+
+/**
+ * Audio side of the app runtime: owns the audio engine, the audio thread and the cue state
+ * shared by the face trackers, from {@link #start()} to {@link #shutdown(long)}.  The platform
+ * engine is reached through an {@link EngineHost}, so the lifecycle runs on the JVM as well.<p>
+ *
+ * The engine is counted in a {@link ResourceTracker} when created, and counted as dropped only
+ * once the audio thread has exited, its sounds are stopped and the runtime and its host no
+ * longer reference it.  Whether the platform then frees its native resources is up to the
+ * platform.  The audio thread is counted in the same tracker.
+ */
+public final class AudioRuntime {
+    /**
+     * Creates and releases the platform audio engine.
+     */
+    public interface EngineHost {
+        /**
+         * Creates the engine.  Called once, from {@link #start()}.
+         */
+        AudioEngine createEngine();
+
+        /**
+         * Returns true if the engine needs its regular update, e.g. while a sound plays.  Called
+         * on the audio thread.
+         */
+        boolean needsUpdate();
+
+        /**
+         * Called on the audio thread if the sound file could not be preloaded.
+         */
+        void onPreloadFailed(String soundFile);
+
+        /**
+         * Stops every sound, frees what the engine holds and drops it.  Called once, after the
+         * audio thread exited.
+         */
+        void releaseEngine();
+    }
+
+    // Audio thread rate, matching the head rotation sensor rate.
+    private static final long AUDIO_TICK_MILLIS = 10;
+
+    private final EngineHost mHost;
+    private final HeadRotationFusion mHeadRotation;
+    private final String mSoundFile;
+    private final float mCrowdCellFaceWidths;
+    private final ResourceTracker mResourceTracker;
+
+    private AudioEngine mEngine;
+    private AudioWorker mWorker;
+    // Shared by all trackers: at most one sound update per interval across all faces.
+    private final CueRateLimiter mCueRateLimiter =
+            new CueRateLimiter(250, System.currentTimeMillis());
+    // Maps face position and orientation to sound position and gain, shared by all trackers.
+    private final FaceCueMapper mCueMapper = new FaceCueMapper();
+    // Crowd mode: grouped cues for clusters of faces.
+    private CrowdCuePlayer mCrowdCuePlayer;
+
+    /**
+     * @param host creates and releases the engine
+     * @param headRotation head rotation pushed to the engine on every tick
+     * @param soundFile sound file preloaded on the audio thread and played by the cues
+     * @param crowdCellFaceWidths side of the crowd clustering grid cells, in mean face widths
+     * @param resourceTracker counts the engine and the audio thread
+     */
+    public AudioRuntime(EngineHost host, HeadRotationFusion headRotation, String soundFile,
+                        float crowdCellFaceWidths, ResourceTracker resourceTracker) {
+        mHost = host;
+        mHeadRotation = headRotation;
+        mSoundFile = soundFile;
+        mCrowdCellFaceWidths = crowdCellFaceWidths;
+        mResourceTracker = resourceTracker;
+    }
+
+    /**
+     * Creates the engine and starts the audio thread, paused until {@link #resume()}.
+     */
+    public void start() {
+        mEngine = mHost.createEngine();
+        mResourceTracker.onEngineCreated();
+        mEngine.setHeadPosition(0.0f, 0.0f, 0.0f);
+        mCrowdCuePlayer =
+                new CrowdCuePlayer(mEngine, mCueMapper, mSoundFile, mCrowdCellFaceWidths);
+
+        mWorker = new AudioWorker(mEngine);
+        mWorker.pause();
+        mWorker.start();
+    }
+
+    public void resume() {
+        mEngine.resume();
+        mWorker.resume();
+    }
+
+    public void pause() {
+        mWorker.pause();
+        mEngine.pause();
+    }
+
+    /**
+     * Stops the audio thread, waiting at most {@code timeoutMillis}, then the sounds, and
+     * drops the engine.  If the thread does not exit in time, the engine is left alone, and
+     * stays counted, since the thread may still use it.
+     *
+     * @return true if everything was released
+     */
+    public boolean shutdown(long timeoutMillis) {
+        if (!mWorker.shutdown(timeoutMillis)) {
+            return false;
+        }
+        mWorker = null;
+
+        mCrowdCuePlayer.stopAll();
+        mCrowdCuePlayer = null;
+        mEngine = null;
+        mHost.releaseEngine();
+        mResourceTracker.onEngineDropped();
+        return true;
+    }
+
+    /**
+     * Returns the engine, or null once shut down.
+     */
+    public AudioEngine getAudioEngine() {
+        return mEngine;
+    }
+
+    public CrowdCuePlayer getCrowdCuePlayer() {
+        return mCrowdCuePlayer;
+    }
+
+    public CueRateLimiter getCueRateLimiter() {
+        return mCueRateLimiter;
+    }
+
+    public FaceCueMapper getCueMapper() {
+        return mCueMapper;
+    }
+
+    /**
+     * Preloads the cue sound, then pushes the head rotation to the engine and updates it as
+     * needed.
+     */
+    private final class AudioWorker extends PausableWorker {
+        private final AudioEngine mEngine;
+        private final float[] mHeadQuat = new float[4];
+
+        AudioWorker(AudioEngine engine) {
+            super("AudioThread", AUDIO_TICK_MILLIS, mResourceTracker);
+            mEngine = engine;
+        }
+
+        @Override
+        protected void onStart() {
+            // Avoid any delays during start-up due to decoding of sound files.
+            if (!mEngine.preloadSoundFile(mSoundFile)) {
+                mHost.onPreloadFailed(mSoundFile);
+            }
+        }
+
+        @Override
+        protected void onTick() {
+            if (mHeadRotation.pollHeadRotation(mHeadQuat)) {
+                mEngine.setHeadRotation(mHeadQuat[0], mHeadQuat[1], mHeadQuat[2], mHeadQuat[3]);
+            }
+            if (mHost.needsUpdate()) {
+                // Regular update call to the audio engine.
+                mEngine.update();
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.lifecycle;
+
+/**
+ * Worker thread calling {@link #onTick()} at a fixed interval, which can be paused while the app
+ * is in the background and shut down for good.  A paused worker waits without using CPU.
+ */
+public abstract class PausableWorker {
+    private final String mName;
+    private final long mTickMillis;
+    private final ResourceTracker mTracker;
+    private final Object mLock = new Object();
+    private boolean mPaused;
+    private boolean mShutdown;
+    private Thread mThread;
+
+    /**
+     * @param name thread name
+     * @param tickMillis interval between two ticks
+     */
+    protected PausableWorker(String name, long tickMillis) {
+        this(name, tickMillis, ResourceTracker.getDefault());
+    }
+
+    /**
+     * @param name thread name
+     * @param tickMillis interval between two ticks
+     * @param tracker counts the worker thread
+     */
+    protected PausableWorker(String name, long tickMillis, ResourceTracker tracker) {
+        mName = name;
+        mTickMillis = tickMillis;
+        mTracker = tracker;
+    }
+
+    /**
+     * Starts the worker thread.  Call once.
+     */
+    public void start() {
+        mThread = new TrackedThread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, mName, mTracker);
+        mThread.start();
+    }
+
+    /**
+     * Stops calling {@link #onTick()} until {@link #resume()}.  A tick in progress completes.
+     */
+    public void pause() {
+        synchronized (mLock) {
+            mPaused = true;
+        }
+    }
+
+    public void resume() {
+        synchronized (mLock) {
+            mPaused = false;
+            mLock.notifyAll();
+        }
+    }
+
+    public boolean isPaused() {
+        synchronized (mLock) {
+            return mPaused;
+        }
+    }
+
+    /**
+     * Stops the worker for good, waiting at most {@code timeoutMillis} for the thread to exit.
+     *
+     * @return true if the thread exited in time
+     */
+    public boolean shutdown(long timeoutMillis) {
+        synchronized (mLock) {
+            mShutdown = true;
+            mLock.notifyAll();
+        }
+        if (mThread == null) {
+            return true;
+        }
+        try {
+            mThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !mThread.isAlive();
+    }
+
+    /**
+     * Called on the worker thread before the first tick.
+     */
+    protected void onStart() {
+    }
+
+    /**
+     * Called on the worker thread every tick while not paused.
+     */
+    protected abstract void onTick();
+
+    private void loop() {
+        onStart();
+        try {
+            while (true) {
+                synchronized (mLock) {
+                    while (mPaused && !mShutdown) {
+                        mLock.wait();
+                    }
+                    if (mShutdown) {
+                        return;
+                    }
+                }
+                onTick();
+                synchronized (mLock) {
+                    if (!mShutdown) {
+                        mLock.wait(mTickMillis);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Interrupted by the system: exit like on shutdown.
+        }
+    }
+}
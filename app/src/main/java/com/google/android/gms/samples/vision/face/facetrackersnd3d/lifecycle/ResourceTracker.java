@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.lifecycle;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the worker threads alive in the process and the audio engines held by the app, so that
+ * leaks show up: after the app is closed, or after any number of configuration changes, both
+ * counts should be back where they started.  Threads are counted by {@link TrackedThread} and its
+ * Android counterpart; engines by their owner.<p>
+ *
+ * An engine is counted until its owner drops it: the GVR engine has no explicit release, and
+ * frees its native resources only once finalized, which is not tracked.  A held count of zero
+ * thus means that the app no longer keeps any engine, not that the native side was freed.
+ */
+public final class ResourceTracker {
+    private static final ResourceTracker sDefault = new ResourceTracker();
+
+    private final AtomicInteger mLiveThreads = new AtomicInteger();
+    private final AtomicInteger mStartedThreads = new AtomicInteger();
+    private final AtomicInteger mHeldEngines = new AtomicInteger();
+    private final AtomicInteger mCreatedEngines = new AtomicInteger();
+
+    /**
+     * Returns the tracker used by the app.
+     */
+    public static ResourceTracker getDefault() {
+        return sDefault;
+    }
+
+    /**
+     * Called by a worker thread when it starts running.
+     */
+    public void onThreadStarted() {
+        mStartedThreads.incrementAndGet();
+        mLiveThreads.incrementAndGet();
+    }
+
+    /**
+     * Called by a worker thread when it is about to exit.
+     */
+    public void onThreadStopped() {
+        mLiveThreads.decrementAndGet();
+    }
+
+    public void onEngineCreated() {
+        mCreatedEngines.incrementAndGet();
+        mHeldEngines.incrementAndGet();
+    }
+
+    /**
+     * Called by the owner of an engine once it stopped its sounds and dropped every reference
+     * to it.
+     */
+    public void onEngineDropped() {
+        mHeldEngines.decrementAndGet();
+    }
+
+    /**
+     * Returns the number of tracked threads currently running.
+     */
+    public int getLiveThreadCount() {
+        return mLiveThreads.get();
+    }
+
+    /**
+     * Returns the number of tracked threads started since the process started.
+     */
+    public int getStartedThreadCount() {
+        return mStartedThreads.get();
+    }
+
+    /**
+     * Returns the number of audio engines created and not yet dropped by their owner.
+     */
+    public int getHeldEngineCount() {
+        return mHeldEngines.get();
+    }
+
+    /**
+     * Returns the number of audio engines created since the process started.
+     */
+    public int getCreatedEngineCount() {
+        return mCreatedEngines.get();
+    }
+
+    @Override
+    public String toString() {
+        return "threads: " + getLiveThreadCount() + " live, " + getStartedThreadCount()
+                + " started; engines: " + getHeldEngineCount() + " held, "
+                + getCreatedEngineCount() + " created";
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.lifecycle;
+
+/**
+ * Thread counted by a {@link ResourceTracker}, by default the
+ * {@link ResourceTracker#getDefault() default one}, while it runs.  Every worker thread of the
+ * app is one, so that a thread left running shows up in the live thread count.
+ */
+public class TrackedThread extends Thread {
+    private final ResourceTracker mTracker;
+
+    public TrackedThread(Runnable target, String name) {
+        this(target, name, ResourceTracker.getDefault());
+    }
+
+    public TrackedThread(Runnable target, String name, ResourceTracker tracker) {
+        super(target, name);
+        mTracker = tracker;
+    }
+
+    @Override
+    public void run() {
+        mTracker.onThreadStarted();
+        try {
+            super.run();
+        } finally {
+            mTracker.onThreadStopped();
+        }
+    }
+}
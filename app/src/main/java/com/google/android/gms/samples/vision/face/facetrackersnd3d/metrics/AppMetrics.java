@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics;
+
+/**
+ * The metrics recorded by the app, in the {@link MetricsRegistry#getDefault() default registry}.
+ */
+public final class AppMetrics {
+    private static final MetricsRegistry sRegistry = MetricsRegistry.getDefault();
+
+    /** Frames delivered by the camera, including those dropped before detection. */
+    public static final Rate CAMERA_FRAMES = sRegistry.rate("camera.frames");
+    /** Camera frames dropped because the detector was still busy with an older one. */
+    public static final Counter CAMERA_DROPPED = sRegistry.counter("camera.dropped");
+    /** Frames run through the face detector. */
+    public static final Rate DETECTOR_FRAMES = sRegistry.rate("detector.frames");
+    /** Time spent detecting faces in a frame. */
+    public static final Timer DETECTOR_TIME = sRegistry.timer("detector.time");
+    /** Mean pixels scanned per frame, lower than the frame size with region detection. */
+    public static final Gauge DETECTOR_PIXELS = sRegistry.gauge("detector.pixelsPerFrame");
+    /** Time spent detecting faces in a full frame, with region detection. */
+    public static final Timer DETECTOR_FULL_SCAN_TIME = sRegistry.timer("detector.fullScanTime");
+    /** Time spent detecting faces in a region of a frame, with region detection. */
+    public static final Timer DETECTOR_ROI_SCAN_TIME = sRegistry.timer("detector.roiScanTime");
+    /** Face cues played. */
+    public static final Rate TRACKER_CUES = sRegistry.rate("tracker.cues");
+    /** Time from a frame reaching the detector to the cue played for it. */
+    public static final Timer FRAME_TO_CUE = sRegistry.timer("tracker.frameToCue");
+    /** Calls into the audio engine, from every thread. */
+    public static final Rate AUDIO_CALLS = sRegistry.rate("audio.calls");
+    /** Sound objects currently playing. */
+    public static final Gauge AUDIO_SOUND_OBJECTS = sRegistry.gauge("audio.soundObjects");
+    /** Frames drawn by the overlay. */
+    public static final Rate OVERLAY_FRAMES = sRegistry.rate("overlay.frames");
+    /** Display frames the overlay missed because drawing took too long. */
+    public static final Counter OVERLAY_DROPPED = sRegistry.counter("overlay.dropped");
+    /** Garbage collections since the process started. */
+    public static final Gauge GC_COUNT = sRegistry.gauge("runtime.gcCount");
+
+    private AppMetrics() {
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics;
+
+/**
+ * Count of events, such as dropped frames.  Safe to update from any thread; does nothing while
+ * the registry is disabled.
+ */
+public final class Counter {
+    private final MetricsRegistry mRegistry;
+    private final String mName;
+    private final StripedLong mCount = new StripedLong();
+
+    Counter(MetricsRegistry registry, String name) {
+        mRegistry = registry;
+        mName = name;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public void increment() {
+        if (mRegistry.isEnabled()) {
+            mCount.add(1);
+        }
+    }
+
+    public void add(long delta) {
+        if (mRegistry.isEnabled()) {
+            mCount.add(delta);
+        }
+    }
+
+    /**
+     * Returns the number of events counted while the registry was enabled.
+     */
+    public long get() {
+        return mCount.sum();
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics;
+
+/**
+ * Last value of a quantity, such as the number of live sound objects.  Safe to use from any
+ * thread; does nothing while the registry is disabled.
+ */
+public final class Gauge {
+    private final MetricsRegistry mRegistry;
+    private final String mName;
+    private volatile long mValue;
+
+    Gauge(MetricsRegistry registry, String name) {
+        mRegistry = registry;
+        mName = name;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public void set(long value) {
+        if (mRegistry.isEnabled()) {
+            mValue = value;
+        }
+    }
+
+    public long get() {
+        return mValue;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named performance metrics of the app: {@link Counter counters}, {@link Rate rates},
+ * {@link Gauge gauges} and {@link Timer timers}.  Code on the hot paths looks its metrics up once
+ * and keeps them in fields; recording is then a volatile read while the registry is disabled,
+ * and a few uncontended atomic adds while it is enabled.<p>
+ *
+ * Metrics are created on first lookup and live as long as the registry.  Lookups are thread
+ * safe.
+ */
+public final class MetricsRegistry {
+    private static final MetricsRegistry sDefault = new MetricsRegistry();
+
+    private final Map<String, Object> mMetrics = new HashMap<>();
+    private final List<String> mNames = new ArrayList<>();
+    private volatile boolean mEnabled;
+
+    /**
+     * Creates a registry separate from the {@link #getDefault() default} one, disabled.
+     */
+    public MetricsRegistry() {
+    }
+
+    /**
+     * Returns the registry shared by the whole app.
+     */
+    public static MetricsRegistry getDefault() {
+        return sDefault;
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Enables or disables recording.  Values recorded so far are kept.
+     */
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    public Counter counter(String name) {
+        synchronized (mMetrics) {
+            Object metric = mMetrics.get(name);
+            if (metric == null) {
+                metric = new Counter(this, name);
+                register(name, metric);
+            }
+            return checkType(name, metric, Counter.class);
+        }
+    }
+
+    public Rate rate(String name) {
+        synchronized (mMetrics) {
+            Object metric = mMetrics.get(name);
+            if (metric == null) {
+                metric = new Rate(this, name);
+                register(name, metric);
+            }
+            return checkType(name, metric, Rate.class);
+        }
+    }
+
+    public Gauge gauge(String name) {
+        synchronized (mMetrics) {
+            Object metric = mMetrics.get(name);
+            if (metric == null) {
+                metric = new Gauge(this, name);
+                register(name, metric);
+            }
+            return checkType(name, metric, Gauge.class);
+        }
+    }
+
+    public Timer timer(String name) {
+        synchronized (mMetrics) {
+            Object metric = mMetrics.get(name);
+            if (metric == null) {
+                metric = new Timer(this, name);
+                register(name, metric);
+            }
+            return checkType(name, metric, Timer.class);
+        }
+    }
+
+    /**
+     * Returns the names of the metrics, in creation order.
+     */
+    public List<String> getNames() {
+        synchronized (mMetrics) {
+            return new ArrayList<>(mNames);
+        }
+    }
+
+    private void register(String name, Object metric) {
+        mMetrics.put(name, metric);
+        mNames.add(name);
+    }
+
+    private static <T> T checkType(String name, Object metric, Class<T> type) {
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric " + name + " is not a "
+                    + type.getSimpleName());
+        }
+        return type.cast(metric);
+    }
+}
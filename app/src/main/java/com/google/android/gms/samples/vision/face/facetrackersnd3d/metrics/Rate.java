@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics;
+
+/**
+ * Count of events turned into events per second when sampled, such as detector frames.  Safe
+ * to mark from any thread; does nothing while the registry is disabled.  Sampling is meant to be
+ * done by a single thread, e.g. the one drawing the HUD.
+ */
+public final class Rate {
+    private final MetricsRegistry mRegistry;
+    private final String mName;
+    private final StripedLong mCount = new StripedLong();
+    private long mSampleCount;
+    private long mSampleNanos;
+    private float mPerSecond;
+
+    Rate(MetricsRegistry registry, String name) {
+        mRegistry = registry;
+        mName = name;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public void mark() {
+        if (mRegistry.isEnabled()) {
+            mCount.add(1);
+        }
+    }
+
+    public void mark(long events) {
+        if (mRegistry.isEnabled()) {
+            mCount.add(events);
+        }
+    }
+
+    public long getCount() {
+        return mCount.sum();
+    }
+
+    /**
+     * Returns the events per second since the previous sample, or the previous value if called
+     * again within the same nanosecond.
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     */
+    public float sample(long nowNanos) {
+        long count = mCount.sum();
+        if (mSampleNanos != 0 && nowNanos > mSampleNanos) {
+            mPerSecond = (count - mSampleCount) * 1e9f / (nowNanos - mSampleNanos);
+        }
+        mSampleCount = count;
+        mSampleNanos = nowNanos;
+        return mPerSecond;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sum spread over several atomic cells, so that threads adding to it concurrently (camera,
+ * detector, audio and UI threads) mostly hit different cache lines instead of contending on one
+ * value.  Reading sums the cells, which is only done when the metrics are sampled.
+ */
+final class StripedLong {
+    private static final int STRIPES = 8;
+    // Longs per stripe, so that each stripe sits on its own 64 byte cache line.
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray mCells = new AtomicLongArray(STRIPES * PADDING);
+
+    void add(long delta) {
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        mCells.addAndGet(stripe * PADDING, delta);
+    }
+
+    long sum() {
+        long sum = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            sum += mCells.get(stripe * PADDING);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics;
+
+/**
+ * Durations, such as the detection time of a frame, reported as their mean between two samples.
+ * Safe to record from any thread; does nothing while the registry is disabled.  Sampling is
+ * meant to be done by a single thread.
+ */
+public final class Timer {
+    private final MetricsRegistry mRegistry;
+    private final String mName;
+    private final StripedLong mCount = new StripedLong();
+    private final StripedLong mTotalNanos = new StripedLong();
+    private long mSampleCount;
+    private long mSampleTotalNanos;
+    private long mMeanNanos;
+
+    Timer(MetricsRegistry registry, String name) {
+        mRegistry = registry;
+        mName = name;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public void record(long durationNanos) {
+        if (mRegistry.isEnabled()) {
+            mCount.add(1);
+            mTotalNanos.add(durationNanos);
+        }
+    }
+
+    /**
+     * Returns the mean of the durations recorded since the previous sample, or the previous
+     * mean if none were.
+     */
+    public long sampleMeanNanos() {
+        // Read the total first: a concurrent record() may then add to the count without its
+        // duration, which biases the mean down slightly instead of up without bound.
+        long totalNanos = mTotalNanos.sum();
+        long count = mCount.sum();
+        if (count > mSampleCount) {
+            mMeanNanos = (totalNanos - mSampleTotalNanos) / (count - mSampleCount);
+        }
+        mSampleCount = count;
+        mSampleTotalNanos = totalNanos;
+        return mMeanNanos;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.sensor;
+
+/**
+ * Converts rotation vector sensor samples into the listener head rotation expected by the spatial
+ * audio engine.<p>
+ *
+ * Sound sources are placed relative to the phone (they come from the camera image), so what the
+ * engine needs is the rotation of the user's head as seen from the phone.  The head is assumed to
+ * keep the heading the phone had when tracking started (or was last {@link #recenter() recentered}),
+ * so the head rotation is the inverse of the phone's rotation relative to that reference.  Device
+ * axes (x right, y up, z out of the screen) match the audio engine's axes, so no remapping is
+ * needed.<p>
+ *
+ * The output is smoothed with a time constant to hide sensor jitter.  Nothing is allocated per
+ * sample, and the class has no Android dependency so it can be fed recorded sensor traces on the
+ * JVM.  Samples are expected from a single sensor thread and read from a single audio thread.
+ */
+public final class HeadRotationFusion {
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final Object mLock = new Object();
+    private final double mTimeConstantSeconds;
+
+    // Reference phone orientation (x, y, z, w).
+    private double mRefX;
+    private double mRefY;
+    private double mRefZ;
+    private double mRefW = 1.0;
+    private boolean mHasReference;
+
+    // Smoothed head rotation (x, y, z, w).
+    private double mHeadX;
+    private double mHeadY;
+    private double mHeadZ;
+    private double mHeadW = 1.0;
+
+    private long mLastTimestampNanos;
+    private boolean mUpdated;
+
+    /**
+     * @param timeConstantSeconds smoothing time constant; zero disables smoothing
+     */
+    public HeadRotationFusion(float timeConstantSeconds) {
+        mTimeConstantSeconds = Math.max(0.0f, timeConstantSeconds);
+    }
+
+    /**
+     * Feeds one rotation vector sample, as delivered in {@code SensorEvent.values}.  The scalar
+     * component is optional and is recomputed when missing.
+     *
+     * @param timestampNanos sample timestamp in nanoseconds
+     * @param values rotation vector x, y, z and optionally w
+     */
+    public void onRotationVector(long timestampNanos, float[] values) {
+        double qx = values[0];
+        double qy = values[1];
+        double qz = values[2];
+        double qw;
+        if (values.length > 3) {
+            qw = values[3];
+        } else {
+            qw = Math.sqrt(Math.max(0.0, 1.0 - qx * qx - qy * qy - qz * qz));
+        }
+
+        synchronized (mLock) {
+            if (!mHasReference) {
+                mRefX = qx;
+                mRefY = qy;
+                mRefZ = qz;
+                mRefW = qw;
+                mHasReference = true;
+                mLastTimestampNanos = timestampNanos;
+            }
+
+            // head = conj(phone) * reference
+            double px = -qx;
+            double py = -qy;
+            double pz = -qz;
+            double rx = mRefX;
+            double ry = mRefY;
+            double rz = mRefZ;
+            double rw = mRefW;
+            double tw = qw * rw - px * rx - py * ry - pz * rz;
+            double tx = qw * rx + px * rw + py * rz - pz * ry;
+            double ty = qw * ry - px * rz + py * rw + pz * rx;
+            double tz = qw * rz + px * ry - py * rx + pz * rw;
+
+            // Keep the target on the same hemisphere as the current estimate so that
+            // interpolation takes the short way round.
+            if (tx * mHeadX + ty * mHeadY + tz * mHeadZ + tw * mHeadW < 0.0) {
+                tx = -tx;
+                ty = -ty;
+                tz = -tz;
+                tw = -tw;
+            }
+
+            double alpha = 1.0;
+            long dt = timestampNanos - mLastTimestampNanos;
+            if (mTimeConstantSeconds > 0.0 && dt > 0) {
+                alpha = 1.0 - Math.exp(-(dt / NANOS_PER_SECOND) / mTimeConstantSeconds);
+            }
+            mLastTimestampNanos = timestampNanos;
+
+            double hx = mHeadX + (tx - mHeadX) * alpha;
+            double hy = mHeadY + (ty - mHeadY) * alpha;
+            double hz = mHeadZ + (tz - mHeadZ) * alpha;
+            double hw = mHeadW + (tw - mHeadW) * alpha;
+            double norm = Math.sqrt(hx * hx + hy * hy + hz * hz + hw * hw);
+            if (norm > 0.0) {
+                mHeadX = hx / norm;
+                mHeadY = hy / norm;
+                mHeadZ = hz / norm;
+                mHeadW = hw / norm;
+                mUpdated = true;
+            }
+        }
+    }
+
+    /**
+     * Takes the next sample as the reference heading, so that the current phone orientation maps
+     * to the identity head rotation.
+     */
+    public void recenter() {
+        synchronized (mLock) {
+            mHasReference = false;
+        }
+    }
+
+    /**
+     * Copies the latest head rotation into {@code out} as (x, y, z, w).
+     *
+     * @return true if the rotation changed since the previous call
+     */
+    public boolean pollHeadRotation(float[] out) {
+        synchronized (mLock) {
+            out[0] = (float) mHeadX;
+            out[1] = (float) mHeadY;
+            out[2] = (float) mHeadZ;
+            out[3] = (float) mHeadW;
+            boolean updated = mUpdated;
+            mUpdated = false;
+            return updated;
+        }
+    }
+}
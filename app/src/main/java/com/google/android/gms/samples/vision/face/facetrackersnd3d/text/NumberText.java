@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.text;
+
+/**
+ * Formats numbers into caller supplied char buffers, for drawing code that runs every frame and
+ * must not allocate.  Output only uses the characters {@code 0-9}, {@code .} and {@code -}, and
+ * does not depend on the default locale.
+ */
+public final class NumberText {
+    /**
+     * Longest output of {@link #formatInt(int, char[], int)}.
+     */
+    public static final int MAX_INT_LENGTH = 11;
+
+    /**
+     * Longest output of {@link #formatFixed2(float, char[], int)}: a sign, ten integer digits,
+     * the point and two decimals.
+     */
+    public static final int MAX_FIXED2_LENGTH = 14;
+
+    // Largest magnitude written by formatFixed2; larger values, and infinities, are clamped.
+    private static final double MAX_FIXED2_VALUE = Integer.MAX_VALUE;
+
+    private NumberText() {
+    }
+
+    /**
+     * Writes {@code value} in decimal at {@code offset}.
+     *
+     * @return the number of chars written
+     */
+    public static int formatInt(int value, char[] out, int offset) {
+        // Widen to long so that negating Integer.MIN_VALUE does not overflow.
+        long v = value;
+        int pos = offset;
+        if (v < 0) {
+            out[pos++] = '-';
+            v = -v;
+        }
+        return pos - offset + formatDigits(v, out, pos);
+    }
+
+    /**
+     * Writes {@code value} with two decimals, rounding half up like {@code "%.2f"}.  Values are
+     * clamped to plus or minus {@link Integer#MAX_VALUE}, so that the output never exceeds
+     * {@link #MAX_FIXED2_LENGTH} chars.  NaN is written as a single {@code -}.
+     *
+     * @return the number of chars written
+     */
+    public static int formatFixed2(float value, char[] out, int offset) {
+        if (Float.isNaN(value)) {
+            out[offset] = '-';
+            return 1;
+        }
+
+        int pos = offset;
+        double magnitude = Math.min(Math.abs((double) value), MAX_FIXED2_VALUE);
+        long hundredths = Math.round(magnitude * 100.0);
+        if (value < 0 && hundredths != 0) {
+            out[pos++] = '-';
+        }
+        pos += formatDigits(hundredths / 100, out, pos);
+        int fraction = (int) (hundredths % 100);
+        out[pos++] = '.';
+        out[pos++] = (char) ('0' + fraction / 10);
+        out[pos++] = (char) ('0' + fraction % 10);
+        return pos - offset;
+    }
+
+    private static int formatDigits(long value, char[] out, int offset) {
+        int length = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            length++;
+        }
+        long v = value;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            out[i] = (char) ('0' + (int) (v % 10));
+            v /= 10;
+        }
+        return length;
+    }
+}
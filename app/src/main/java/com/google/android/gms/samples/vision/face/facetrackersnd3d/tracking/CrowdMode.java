@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CrowdCuePlayer;
+
+/**
+ * Frame side of crowd mode: feeds the faces of each frame to a {@link CrowdCuePlayer}, and tells
+ * the {@link FaceCueTracker}s sharing it to mute their per-face cues while grouped cues play.
+ * The app and the JVM load simulator both drive it, so the simulated cue traffic matches the
+ * app's.  Not thread safe: use from the detector thread.
+ */
+public final class CrowdMode {
+    private final CrowdCuePlayer mPlayer;
+    private int mFrameWidth;
+    private int mFrameHeight;
+
+    public CrowdMode(CrowdCuePlayer player) {
+        mPlayer = player;
+    }
+
+    /**
+     * Returns true while grouped cues play and per-face cues should be muted.
+     */
+    public boolean isActive() {
+        return mPlayer.isActive();
+    }
+
+    /**
+     * Updates crowd mode and the cluster voices for the faces of a frame.
+     *
+     * @param width width of the upright frame the face coordinates are in
+     * @param height height of the upright frame the face coordinates are in
+     */
+    public void onFrame(FaceFrame frame, int width, int height, long nowMillis) {
+        if (width != mFrameWidth || height != mFrameHeight) {
+            mPlayer.setFrameSize(width, height);
+            mFrameWidth = width;
+            mFrameHeight = height;
+        }
+        mPlayer.begin();
+        for (int i = 0; i < frame.size(); i++) {
+            FaceObservation face = frame.get(i);
+            mPlayer.addFace(face.id, face.getCenterX(), face.getCenterY(), face.width);
+        }
+        mPlayer.endFrame(nowMillis);
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.AudioEngine;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CueChangeDetector;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CueRateLimiter;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.FaceCue;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.FaceCueMapper;
+
+/**
+ * Audio side of a face tracker: plays a spatialized sound when the face appears, moves it with
+ * the face, replays it when the face changed a lot or kept moving for long, and stops it when
+ * the face goes missing.  A replay reuses the sound object while it still plays.  The regular
+ * engine update is left to the audio thread.  A {@link CueChangeDetector} gates the engine
+ * calls, so a static face costs none and a moving one is only pushed while its sound plays, and
+ * the cues are muted while a shared {@link CrowdMode} plays grouped cues instead.  The
+ * callbacks mirror those of the Play Services {@code Tracker}, so the same logic drives the
+ * app and the JVM load simulator.
+ */
+public final class FaceCueTracker {
+    private static final float MIN_ROLLOFF_DISTANCE = 50.0f;
+
+    private final AudioEngine mEngine;
+    private final FaceCueMapper mMapper;
+    private final CueRateLimiter mRateLimiter;
+    private final String mSoundFile;
+    private final long mSoundMillis;
+    private final CueChangeDetector mChangeDetector;
+    private final CrowdMode mCrowdMode;
+    private final FaceCue mCue = new FaceCue();
+    private int mSourceId = AudioEngine.INVALID_ID;
+    // False once the sound is known or expected to have ended, or was stopped, so that the
+    // engine need not be asked until the next playback.
+    private boolean mPlaying;
+    private long mPlayedMillis;
+    private boolean mEnabled = true;
+    // True when the face appeared while cues were disabled, and was never played.
+    private boolean mDeferred;
+
+    /**
+     * @param engine audio engine playing the cues
+     * @param mapper maps faces to cue position and gain
+     * @param rateLimiter limits how often the sound is replayed; may be shared between trackers
+     * @param soundFile preloaded sound file played for the face
+     * @param soundMillis length of the sound, after which it is expected to have ended
+     */
+    public FaceCueTracker(AudioEngine engine, FaceCueMapper mapper, CueRateLimiter rateLimiter,
+                          String soundFile, long soundMillis) {
+        this(engine, mapper, rateLimiter, soundFile, soundMillis, new CueChangeDetector());
+    }
+
+    /**
+     * @param engine audio engine playing the cues
+     * @param mapper maps faces to cue position and gain
+     * @param rateLimiter limits how often the sound is replayed; may be shared between trackers
+     * @param soundFile preloaded sound file played for the face
+     * @param soundMillis length of the sound, after which it is expected to have ended
+     * @param changeDetector gates the engine calls for this face, or null to replay the sound
+     *     whenever the rate limiter allows it, whether the face changed or not
+     */
+    public FaceCueTracker(AudioEngine engine, FaceCueMapper mapper, CueRateLimiter rateLimiter,
+                          String soundFile, long soundMillis,
+                          CueChangeDetector changeDetector) {
+        this(engine, mapper, rateLimiter, soundFile, soundMillis, changeDetector, null);
+    }
+
+    /**
+     * @param engine audio engine playing the cues
+     * @param mapper maps faces to cue position and gain
+     * @param rateLimiter limits how often the sound is replayed; may be shared between trackers
+     * @param soundFile preloaded sound file played for the face
+     * @param soundMillis length of the sound, after which it is expected to have ended
+     * @param changeDetector gates the engine calls for this face, or null to replay the sound
+     *     whenever the rate limiter allows it, whether the face changed or not
+     * @param crowdMode mutes the cues while active; may be shared between trackers, or null
+     */
+    public FaceCueTracker(AudioEngine engine, FaceCueMapper mapper, CueRateLimiter rateLimiter,
+                          String soundFile, long soundMillis,
+                          CueChangeDetector changeDetector, CrowdMode crowdMode) {
+        mEngine = engine;
+        mMapper = mapper;
+        mRateLimiter = rateLimiter;
+        mSoundFile = soundFile;
+        mSoundMillis = soundMillis;
+        mChangeDetector = changeDetector;
+        mCrowdMode = crowdMode;
+    }
+
+    public FaceCue getCue() {
+        return mCue;
+    }
+
+    public int getSourceId() {
+        return mSourceId;
+    }
+
+    /**
+     * Enables or mutes the cues of this face, e.g. while crowd mode plays grouped cues instead.
+     * Disabling stops the sound; the face is still mapped on every frame so that the cue resumes
+     * smoothly once enabled again.
+     */
+    public void setEnabled(boolean enabled) {
+        if (mEnabled && !enabled) {
+            stopSound();
+        }
+        mEnabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Creates the sound object for a new face and plays it at the face position.
+     *
+     * @return true if a cue was played
+     */
+    public boolean onNewItem(FaceObservation face, long nowMillis) {
+        followCrowdMode();
+        mMapper.map(face.x, face.y, face.width, face.eulerY, face.eulerZ, nowMillis, mCue);
+        if (!mEnabled) {
+            mDeferred = true;
+            return false;
+        }
+        if (createSoundObject()) {
+            playCue(nowMillis);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Maps the face on every frame.  Moves the playing sound when the face moved, and replays
+     * it when the face changed a lot or after a long silence, as far as the rate limiter
+     * allows.
+     *
+     * @return true if a cue was played
+     */
+    public boolean onUpdate(FaceObservation face, long nowMillis) {
+        // Position and orientation gain are computed on every frame so that the gain
+        // smoothing follows the face even between sound updates.
+        mMapper.map(face.x, face.y, face.width, face.eulerY, face.eulerZ, nowMillis, mCue);
+
+        followCrowdMode();
+        boolean played = false;
+        if (mEnabled && (mSourceId != AudioEngine.INVALID_ID || mDeferred)) {
+            int changes = mChangeDetector != null
+                    ? mChangeDetector.update(mCue, nowMillis) : CueChangeDetector.RETRIGGER;
+            // The shared interval is only taken once the sound object is ready, so that a
+            // failed creation does not hold back the cues of the other faces.
+            if ((changes & CueChangeDetector.RETRIGGER) != 0
+                    && mRateLimiter.canAcquire(nowMillis) && reuseOrCreateSoundObject(nowMillis)) {
+                mRateLimiter.tryAcquire(nowMillis);
+                mDeferred = false;
+                playCue(nowMillis);
+                played = true;
+            } else if ((changes & CueChangeDetector.MOVED) != 0) {
+                moveCue(nowMillis);
+            }
+        }
+        return played;
+    }
+
+    /**
+     * Stops the sound while the face is not detected.
+     */
+    public void onMissing() {
+        stopSound();
+    }
+
+    /**
+     * Stops the sound once the face is gone for good.
+     */
+    public void onDone() {
+        stopSound();
+    }
+
+    private void followCrowdMode() {
+        if (mCrowdMode != null) {
+            setEnabled(!mCrowdMode.isActive());
+        }
+    }
+
+    /**
+     * Keeps the sound object if it still plays, otherwise creates one: the engine destroys a
+     * sound object once its playback ends.  The engine is only asked while the sound is
+     * expected to play.
+     */
+    private boolean reuseOrCreateSoundObject(long nowMillis) {
+        if (isSoundPlaying(nowMillis) && mEngine.isSoundPlaying(mSourceId)) {
+            return true;
+        }
+        mPlaying = false;
+        return createSoundObject();
+    }
+
+    private boolean createSoundObject() {
+        int sourceId = mEngine.createSoundObject(mSoundFile);
+        if (sourceId == AudioEngine.INVALID_ID) {
+            return false;
+        }
+        mSourceId = sourceId;
+        mEngine.setSoundObjectLinearRolloff(mSourceId, MIN_ROLLOFF_DISTANCE,
+                FaceCueMapper.FACE_WIDTH_MAX);
+        return true;
+    }
+
+    private void playCue(long nowMillis) {
+        mEngine.setSoundObjectPosition(mSourceId, mCue.getX(), mCue.getY(), mCue.getZ());
+        mEngine.setSoundVolume(mSourceId, mCue.getGain());
+        mEngine.playSound(mSourceId, false /* no looped playback */);
+        mPlaying = true;
+        mPlayedMillis = nowMillis;
+        if (mChangeDetector != null) {
+            mChangeDetector.onPlayed(mCue, nowMillis);
+        }
+    }
+
+    /**
+     * Moves the sound object to the cue, and sets its volume if the gain changed enough, while
+     * it is still playing.
+     */
+    private void moveCue(long nowMillis) {
+        // Once the playback ended there is nothing to move: the next replay sets the position.
+        if (!isSoundPlaying(nowMillis)) {
+            mChangeDetector.onPushed(mCue, true, nowMillis);
+            return;
+        }
+        mEngine.setSoundObjectPosition(mSourceId, mCue.getX(), mCue.getY(), mCue.getZ());
+        boolean gainChanged = mChangeDetector.isGainChanged(mCue);
+        if (gainChanged) {
+            mEngine.setSoundVolume(mSourceId, mCue.getGain());
+        }
+        mChangeDetector.onPushed(mCue, gainChanged, nowMillis);
+    }
+
+    private void stopSound() {
+        // Stopping a sound that already ended does nothing, and costs no more than asking.
+        if (mPlaying) {
+            mEngine.stopSound(mSourceId);
+        }
+        mPlaying = false;
+    }
+
+    /**
+     * Returns true while the sound may still play, without asking the engine: false once it
+     * was stopped, or once its length elapsed since it was played.
+     */
+    private boolean isSoundPlaying(long nowMillis) {
+        mPlaying = mPlaying && nowMillis - mPlayedMillis < mSoundMillis;
+        return mPlaying;
+    }
+}
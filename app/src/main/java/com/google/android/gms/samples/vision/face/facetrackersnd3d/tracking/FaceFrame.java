@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking;
+
+/**
+ * The faces detected in one camera frame.  The observation array grows as needed and is reused
+ * from frame to frame.
+ */
+public final class FaceFrame {
+    private FaceObservation[] mFaces = new FaceObservation[0];
+    private int mSize;
+    private long mTimestampMillis;
+
+    public long getTimestampMillis() {
+        return mTimestampMillis;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public FaceObservation get(int index) {
+        return mFaces[index];
+    }
+
+    /**
+     * Empties the frame and sets its timestamp.
+     */
+    public void reset(long timestampMillis) {
+        mSize = 0;
+        mTimestampMillis = timestampMillis;
+    }
+
+    /**
+     * Appends a face and returns it for the caller to fill in.
+     */
+    public FaceObservation add() {
+        if (mSize == mFaces.length) {
+            FaceObservation[] faces = new FaceObservation[Math.max(8, mSize * 2)];
+            System.arraycopy(mFaces, 0, faces, 0, mSize);
+            for (int i = mSize; i < faces.length; i++) {
+                faces[i] = new FaceObservation();
+            }
+            mFaces = faces;
+        }
+        return mFaces[mSize++];
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking;
+
+import java.util.Arrays;
+
+/**
+ * Gives faces stable ids across frames by matching each face with the nearest face of the
+ * previous frames.  Used instead of the detector's own tracking when consecutive frames are not
+ * scanned over the same area, e.g. with region of interest detection, where the detector would
+ * see the faces jump by the offset of the region.<p>
+ *
+ * A face matches a previous face whose center is closer than {@link #MAX_MATCH_DISTANCE} face
+ * widths; faces missing from a frame are still matched for {@link #MAX_MISSED_FRAMES} frames.
+ * Faces are few, so matching is a linear search.  Not thread safe: use from the detector thread.
+ */
+public final class FaceIdAssigner {
+    /** Maximum distance between the centers of two matching faces, in face widths. */
+    public static final float MAX_MATCH_DISTANCE = 0.6f;
+    /** Number of frames a face may be missing and still keep its id. */
+    public static final int MAX_MISSED_FRAMES = 3;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Faces mPrevious = new Faces(INITIAL_CAPACITY);
+    private Faces mCurrent = new Faces(INITIAL_CAPACITY);
+    private int mNextId;
+
+    /**
+     * Starts a frame.
+     */
+    public void begin() {
+        mCurrent.count = 0;
+    }
+
+    /**
+     * Returns the id of a face of the current frame, from its center and width.
+     */
+    public int assign(float centerX, float centerY, float width) {
+        Faces previous = mPrevious;
+        float maxDistance = MAX_MATCH_DISTANCE * width;
+        float bestDistanceSq = maxDistance * maxDistance;
+        int best = -1;
+        for (int i = 0; i < previous.count; i++) {
+            if (previous.claimed[i]) {
+                continue;
+            }
+            float dx = previous.x[i] - centerX;
+            float dy = previous.y[i] - centerY;
+            float distanceSq = dx * dx + dy * dy;
+            if (distanceSq < bestDistanceSq) {
+                bestDistanceSq = distanceSq;
+                best = i;
+            }
+        }
+
+        int id;
+        if (best >= 0) {
+            previous.claimed[best] = true;
+            id = previous.id[best];
+        } else {
+            id = mNextId++;
+        }
+        mCurrent.add(id, centerX, centerY, width, 0);
+        return id;
+    }
+
+    /**
+     * Ends the frame: its faces, and the recently missed ones, are matched against the next.
+     */
+    public void end() {
+        Faces previous = mPrevious;
+        for (int i = 0; i < previous.count; i++) {
+            if (!previous.claimed[i] && previous.missed[i] < MAX_MISSED_FRAMES) {
+                mCurrent.add(previous.id[i], previous.x[i], previous.y[i], previous.width[i],
+                        previous.missed[i] + 1);
+            }
+            previous.claimed[i] = false;
+        }
+        mPrevious = mCurrent;
+        mCurrent = previous;
+    }
+
+    /**
+     * Forgets all faces, e.g. when the camera restarts.
+     */
+    public void clear() {
+        mPrevious.count = 0;
+        mCurrent.count = 0;
+    }
+
+    /**
+     * Faces of one frame, as parallel arrays.
+     */
+    private static final class Faces {
+        int count;
+        int[] id;
+        float[] x;
+        float[] y;
+        float[] width;
+        int[] missed;
+        boolean[] claimed;
+
+        Faces(int capacity) {
+            id = new int[capacity];
+            x = new float[capacity];
+            y = new float[capacity];
+            width = new float[capacity];
+            missed = new int[capacity];
+            claimed = new boolean[capacity];
+        }
+
+        void add(int faceId, float centerX, float centerY, float faceWidth, int missedFrames) {
+            if (count == id.length) {
+                int capacity = count * 2;
+                id = Arrays.copyOf(id, capacity);
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                width = Arrays.copyOf(width, capacity);
+                missed = Arrays.copyOf(missed, capacity);
+                claimed = Arrays.copyOf(claimed, capacity);
+            }
+            id[count] = faceId;
+            x[count] = centerX;
+            y[count] = centerY;
+            width[count] = faceWidth;
+            missed[count] = missedFrames;
+            claimed[count] = false;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking;
+
+/**
+ * Plain copy of the detector output for one face, so that the tracking logic does not depend on
+ * the Play Services {@code Face} class.  Instances are mutable and meant to be reused.
+ */
+public final class FaceObservation {
+    public int id;
+    /** Top left corner, in preview coordinates. */
+    public float x;
+    public float y;
+    public float width;
+    public float height;
+    /** Head yaw in degrees, NaN if unknown. */
+    public float eulerY;
+    /** Head roll in degrees, NaN if unknown. */
+    public float eulerZ;
+    public float smilingProbability;
+    public float leftEyeOpenProbability;
+    public float rightEyeOpenProbability;
+
+    public float getCenterX() {
+        return x + width / 2.0f;
+    }
+
+    public float getCenterY() {
+        return y + height / 2.0f;
+    }
+
+    public void set(FaceObservation other) {
+        id = other.id;
+        x = other.x;
+        y = other.y;
+        width = other.width;
+        height = other.height;
+        eulerY = other.eulerY;
+        eulerZ = other.eulerZ;
+        smilingProbability = other.smilingProbability;
+        leftEyeOpenProbability = other.leftEyeOpenProbability;
+        rightEyeOpenProbability = other.rightEyeOpenProbability;
+    }
+}
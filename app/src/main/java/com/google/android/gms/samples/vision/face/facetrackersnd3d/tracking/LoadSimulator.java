@@ -0,0 +1,368 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CrowdCuePlayer;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CueChangeDetector;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CueRateLimiter;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.FaceCueMapper;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.RecordingAudioEngine;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Drives the face tracker logic headless, with synthetic faces and a
+ * {@link RecordingAudioEngine}, to catch sound object leaks and engine overload on the JVM.<p>
+ *
+ * Frames are dispatched like the Play Services {@code MultiProcessor} does: a tracker is created
+ * for each new face id, updated on every frame the face is detected, told when the face is
+ * missing, and finished once it has been missing for more than the allowed gap.  Time is
+ * simulated, so frames are processed as fast as the tracker logic and the simulated engine cost
+ * allow; the report compares that throughput with the requested frame rate.  The engine is
+ * updated once per frame, standing in for the app's audio thread.  Crowd mode runs as
+ * in the app, muting the per-face cues of busy scenes in favour of grouped cues.<p>
+ *
+ * After the last frame, every face leaves the scene and empty frames keep coming for a drain
+ * period, so that trackers finish and sounds end: sound objects still alive after that leaked.
+ */
+public final class LoadSimulator {
+    private static final String SOUND_FILE = "simulated.wav";
+    // Same as the app.
+    private static final float CROWD_CELL_FACE_WIDTHS = 1.0f;
+
+    private final int mFaceCount;
+    private final float mFps;
+    private final int mFrameCount;
+    private final float mHideProbability;
+    private final float mStillFraction;
+    private final int mMaxGapFrames;
+    private final long mEngineCallCostNanos;
+    private final long mClipDurationMillis;
+    private final long mDrainMillis;
+    private final boolean mMotionGating;
+    private final boolean mCrowdMode;
+    private final long mSeed;
+
+    /**
+     * Builder for configuring and creating an associated load simulator.
+     */
+    public static class Builder {
+        private int mFaceCount = 10;
+        private float mFps = 30.0f;
+        private int mFrameCount = 900;
+        private float mHideProbability = 0.01f;
+        private float mStillFraction = 0.0f;
+        private int mMaxGapFrames = 3;
+        private long mEngineCallCostNanos = 0;
+        private long mClipDurationMillis = 100;
+        private long mDrainMillis = 2000;
+        private boolean mMotionGating = true;
+        private boolean mCrowdMode = true;
+        private long mSeed = 1;
+
+        /**
+         * Sets the number of faces in the scene, 10 by default.
+         */
+        public Builder setFaceCount(int faceCount) {
+            mFaceCount = faceCount;
+            return this;
+        }
+
+        /**
+         * Sets the simulated camera frame rate, 30 fps by default.
+         */
+        public Builder setFps(float fps) {
+            mFps = fps;
+            return this;
+        }
+
+        /**
+         * Sets the number of frames to simulate, 900 (30 s at 30 fps) by default.
+         */
+        public Builder setFrameCount(int frameCount) {
+            mFrameCount = frameCount;
+            return this;
+        }
+
+        /**
+         * Sets the probability for a face to disappear on a given frame, 1% by default.
+         */
+        public Builder setHideProbability(float hideProbability) {
+            mHideProbability = hideProbability;
+            return this;
+        }
+
+        /**
+         * Sets the fraction of the faces that neither move nor turn, none by default.
+         */
+        public Builder setStillFraction(float stillFraction) {
+            mStillFraction = stillFraction;
+            return this;
+        }
+
+        /**
+         * Sets how many frames a face may be missing before its tracker is done, 3 by default
+         * as for the MultiProcessor.
+         */
+        public Builder setMaxGapFrames(int maxGapFrames) {
+            mMaxGapFrames = maxGapFrames;
+            return this;
+        }
+
+        /**
+         * Sets the CPU time burnt by every audio engine call, none by default.
+         */
+        public Builder setEngineCallCostNanos(long engineCallCostNanos) {
+            mEngineCallCostNanos = engineCallCostNanos;
+            return this;
+        }
+
+        /**
+         * Sets the duration of the cue sound, 100 ms by default like the sound of the app.
+         */
+        public Builder setClipDurationMillis(long clipDurationMillis) {
+            mClipDurationMillis = clipDurationMillis;
+            return this;
+        }
+
+        /**
+         * Sets how long empty frames keep coming once every face left, 2 s by default.  Should
+         * exceed the clip duration so that every sound can end.
+         */
+        public Builder setDrainMillis(long drainMillis) {
+            mDrainMillis = drainMillis;
+            return this;
+        }
+
+        /**
+         * Sets whether trackers only call the engine when their cue changed, as in the app, or
+         * replay it whenever the rate limiter allows.  Enabled by default.
+         */
+        public Builder setMotionGating(boolean motionGating) {
+            mMotionGating = motionGating;
+            return this;
+        }
+
+        /**
+         * Sets whether crowd mode plays grouped cues for busy scenes, as in the app.  Enabled by
+         * default.
+         */
+        public Builder setCrowdMode(boolean crowdMode) {
+            mCrowdMode = crowdMode;
+            return this;
+        }
+
+        public Builder setSeed(long seed) {
+            mSeed = seed;
+            return this;
+        }
+
+        public LoadSimulator build() {
+            return new LoadSimulator(this);
+        }
+    }
+
+    /**
+     * Outcome of a simulation run.
+     */
+    public static final class Report {
+        public int faceCount;
+        public float fps;
+        public boolean motionGating;
+        public boolean crowdMode;
+        public int frames;
+        /** Frames during which crowd mode was active. */
+        public int crowdFrames;
+        public long wallNanos;
+        /** Simulated time with faces in the scene, excluding the drain period. */
+        public long simulatedMillis;
+        /** Audio engine calls made while faces were in the scene. */
+        public long audioCalls;
+        public long updateCalls;
+        public long playCalls;
+        public long positionCalls;
+        public long soundObjectsCreated;
+        /** Sound objects still alive after every face left and the drain period: leaks. */
+        public int liveSoundObjects;
+        public int peakSoundObjects;
+        public int trackersCreated;
+        /** Trackers not finished after the drain period. */
+        public int activeTrackers;
+
+        /**
+         * Frames processed per second of wall clock time.
+         */
+        public double getFramesPerSecond() {
+            return wallNanos == 0 ? 0.0 : frames * 1e9 / wallNanos;
+        }
+
+        /**
+         * Audio engine calls per simulated second.
+         */
+        public double getAudioCallsPerSecond() {
+            return simulatedMillis == 0 ? 0.0 : audioCalls * 1000.0 / simulatedMillis;
+        }
+
+        /**
+         * True if frames could not be processed as fast as the camera delivers them.
+         */
+        public boolean isOverloaded() {
+            return getFramesPerSecond() < fps;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.US,
+                    "faces: %d fps: %.1f gating: %s crowd: %s frames: %d (crowd %d)"
+                            + " throughput: %.0f fps%s%n"
+                            + "  audio calls: %d (%.1f/s), update %d, play %d, position %d%n"
+                            + "  sound objects: created %d, live %d, peak %d%n"
+                            + "  trackers: created %d, active %d",
+                    faceCount, fps, motionGating ? "on" : "off", crowdMode ? "on" : "off",
+                    frames, crowdFrames, getFramesPerSecond(),
+                    isOverloaded() ? " OVERLOADED" : "",
+                    audioCalls, getAudioCallsPerSecond(), updateCalls, playCalls, positionCalls,
+                    soundObjectsCreated, liveSoundObjects, peakSoundObjects,
+                    trackersCreated, activeTrackers);
+        }
+    }
+
+    private static final class TrackerEntry {
+        final FaceCueTracker mTracker;
+        int mMissingFrames;
+        boolean mSeen;
+
+        TrackerEntry(FaceCueTracker tracker) {
+            mTracker = tracker;
+        }
+    }
+
+    private LoadSimulator(Builder builder) {
+        mFaceCount = builder.mFaceCount;
+        mFps = builder.mFps;
+        mFrameCount = builder.mFrameCount;
+        mHideProbability = builder.mHideProbability;
+        mStillFraction = builder.mStillFraction;
+        mMaxGapFrames = builder.mMaxGapFrames;
+        mEngineCallCostNanos = builder.mEngineCallCostNanos;
+        mClipDurationMillis = builder.mClipDurationMillis;
+        mDrainMillis = builder.mDrainMillis;
+        mMotionGating = builder.mMotionGating;
+        mCrowdMode = builder.mCrowdMode;
+        mSeed = builder.mSeed;
+    }
+
+    /**
+     * Runs the simulation to completion.
+     */
+    public Report run() {
+        RecordingAudioEngine engine =
+                new RecordingAudioEngine(mEngineCallCostNanos, mClipDurationMillis);
+        FaceFrameSource source = new SyntheticFaceFrameSource(mFaceCount, mFps, mFrameCount,
+                mHideProbability, mStillFraction, mSeed);
+        FaceCueMapper mapper = new FaceCueMapper();
+        CueRateLimiter rateLimiter = new CueRateLimiter(250, 0);
+        engine.preloadSoundFile(SOUND_FILE);
+        CrowdMode crowdMode = mCrowdMode ? new CrowdMode(
+                new CrowdCuePlayer(engine, mapper, SOUND_FILE, CROWD_CELL_FACE_WIDTHS)) : null;
+
+        Map<Integer, TrackerEntry> trackers = new HashMap<>();
+        FaceFrame frame = new FaceFrame();
+        Report report = new Report();
+        report.faceCount = mFaceCount;
+        report.fps = mFps;
+        report.motionGating = mMotionGating;
+        report.crowdMode = mCrowdMode;
+
+        long start = System.nanoTime();
+        while (source.nextFrame(frame)) {
+            dispatch(frame, trackers, engine, mapper, rateLimiter, crowdMode, report);
+            report.frames++;
+            if (crowdMode != null && crowdMode.isActive()) {
+                report.crowdFrames++;
+            }
+        }
+        report.wallNanos = System.nanoTime() - start;
+        report.simulatedMillis = (long) (report.frames * 1000.0 / mFps);
+
+        report.audioCalls = engine.getTotalCalls();
+        report.updateCalls = engine.getCallCount(RecordingAudioEngine.Call.UPDATE);
+        report.playCalls = engine.getCallCount(RecordingAudioEngine.Call.PLAY_SOUND);
+        report.positionCalls =
+                engine.getCallCount(RecordingAudioEngine.Call.SET_SOUND_OBJECT_POSITION);
+        report.soundObjectsCreated = engine.getCreatedSoundObjects();
+
+        // Every face leaves.
+        int drainFrames = (int) Math.ceil(mDrainMillis * mFps / 1000.0);
+        for (int i = 1; i <= drainFrames; i++) {
+            frame.reset(report.simulatedMillis + (long) (i * 1000.0 / mFps));
+            dispatch(frame, trackers, engine, mapper, rateLimiter, crowdMode, report);
+        }
+
+        report.liveSoundObjects = engine.getLiveSoundObjects();
+        report.peakSoundObjects = engine.getPeakSoundObjects();
+        report.activeTrackers = trackers.size();
+        return report;
+    }
+
+    /**
+     * Dispatches one frame to crowd mode, then to the trackers, creating and finishing them
+     * like the {@code MultiProcessor}.
+     */
+    private void dispatch(FaceFrame frame, Map<Integer, TrackerEntry> trackers,
+                          RecordingAudioEngine engine, FaceCueMapper mapper,
+                          CueRateLimiter rateLimiter, CrowdMode crowdMode, Report report) {
+        long now = frame.getTimestampMillis();
+        engine.setTimeMillis(now);
+        // Regular update call, made by the audio thread in the app; once per frame here.
+        engine.update();
+        if (crowdMode != null) {
+            crowdMode.onFrame(frame, SyntheticFaceFrameSource.PREVIEW_WIDTH,
+                    SyntheticFaceFrameSource.PREVIEW_HEIGHT, now);
+        }
+
+        for (int i = 0; i < frame.size(); i++) {
+            FaceObservation face = frame.get(i);
+            TrackerEntry entry = trackers.get(face.id);
+            if (entry == null) {
+                entry = new TrackerEntry(new FaceCueTracker(engine, mapper, rateLimiter,
+                        SOUND_FILE, mClipDurationMillis,
+                        mMotionGating ? new CueChangeDetector() : null, crowdMode));
+                trackers.put(face.id, entry);
+                report.trackersCreated++;
+                entry.mTracker.onNewItem(face, now);
+            }
+            entry.mSeen = true;
+            entry.mMissingFrames = 0;
+            entry.mTracker.onUpdate(face, now);
+        }
+
+        Iterator<TrackerEntry> it = trackers.values().iterator();
+        while (it.hasNext()) {
+            TrackerEntry entry = it.next();
+            if (entry.mSeen) {
+                entry.mSeen = false;
+            } else if (++entry.mMissingFrames > mMaxGapFrames) {
+                entry.mTracker.onDone();
+                it.remove();
+            } else {
+                entry.mTracker.onMissing();
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.util.IntIntMap;
+
+/**
+ * Short-lived memory of lost face tracks, so that a face hidden for a moment comes back as the
+ * same track rather than a new one.  When the detector gives up on a face, its tracker is put in
+ * the cache with the last position, size, velocity and classification profile of the face.  A
+ * new detection close to where a cached face would be by now, of a similar size and profile,
+ * takes that tracker back.<p>
+ *
+ * The cache is bounded: it holds at most {@code capacity} tracks, each for at most
+ * {@code maxAgeMillis}, and hands the others to the {@link EvictionListener} to be released.
+ * Tracks are indexed in a grid over the preview, so lookups only visit the cells around the new
+ * face, whatever the cache size.  Not thread safe: use from the detector thread.
+ *
+ * @param <T> the tracker, or whatever state the caller wants to carry over
+ */
+public final class LostTrackCache<T> {
+    /**
+     * Receives the items dropped from the cache without being taken back.
+     */
+    public interface EvictionListener<T> {
+        void onEvicted(T item);
+    }
+
+    // A match must be within this many face widths of the predicted position, and of a size
+    // within this ratio.
+    private static final float MAX_DISTANCE_WIDTHS = 1.0f;
+    private static final float MAX_SIZE_RATIO = 1.5f;
+    // Weight of the mean difference in classification probabilities in the match score.
+    private static final float PROFILE_WEIGHT = 0.5f;
+    private static final int NONE = -1;
+
+    private final int mCapacity;
+    private final long mMaxAgeMillis;
+    private final float mCellSize;
+    private final EvictionListener<T> mListener;
+
+    // Entries in fixed slots, chained from the oldest to the newest loss.  Slots freed by take()
+    // or eviction go to a free list and are reused by the next put().
+    private final Object[] mItem;
+    private final long[] mLostMillis;
+    private final float[] mCenterX;
+    private final float[] mCenterY;
+    private final float[] mWidth;
+    private final float[] mVelocityX;
+    private final float[] mVelocityY;
+    private final float[] mSmiling;
+    private final float[] mLeftEyeOpen;
+    private final float[] mRightEyeOpen;
+    private final int[] mCell;
+    private final int[] mOlder;
+    private final int[] mNewer;
+    private int mOldest = NONE;
+    private int mNewest = NONE;
+    private final int[] mFreeSlots;
+    private int mFreeCount;
+    private int mSize;
+
+    // Grid index: cell key to first entry, chained through mNextInCell.
+    private final IntIntMap mCellHead = new IntIntMap();
+    private final int[] mNextInCell;
+
+    /**
+     * @param capacity maximum number of lost tracks kept
+     * @param maxAgeMillis how long a lost track may be taken back
+     * @param cellSize side of the index grid cells, in preview coordinates; about the size of a
+     *     face
+     * @param listener releases the items that are evicted
+     */
+    public LostTrackCache(int capacity, long maxAgeMillis, float cellSize,
+                          EvictionListener<T> listener) {
+        mCapacity = capacity;
+        mMaxAgeMillis = maxAgeMillis;
+        mCellSize = cellSize;
+        mListener = listener;
+        mItem = new Object[capacity];
+        mLostMillis = new long[capacity];
+        mCenterX = new float[capacity];
+        mCenterY = new float[capacity];
+        mWidth = new float[capacity];
+        mVelocityX = new float[capacity];
+        mVelocityY = new float[capacity];
+        mSmiling = new float[capacity];
+        mLeftEyeOpen = new float[capacity];
+        mRightEyeOpen = new float[capacity];
+        mCell = new int[capacity];
+        mNextInCell = new int[capacity];
+        mOlder = new int[capacity];
+        mNewer = new int[capacity];
+        mFreeSlots = new int[capacity];
+        for (int slot = capacity - 1; slot >= 0; slot--) {
+            mFreeSlots[mFreeCount++] = slot;
+        }
+    }
+
+    /**
+     * Returns the number of lost tracks in the cache.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Adds a lost track, evicting the oldest one if the cache is full.
+     *
+     * @param face last observation of the face
+     * @param velocityX horizontal velocity of the face centre, in pixels per millisecond
+     * @param velocityY vertical velocity of the face centre, in pixels per millisecond
+     * @param nowMillis time the track was lost
+     * @param item tracker to hand back on a match; must not be null
+     */
+    public void put(FaceObservation face, float velocityX, float velocityY, long nowMillis,
+                    T item) {
+        evictExpired(nowMillis);
+        if (mSize == mCapacity) {
+            evictOldest();
+        }
+
+        int slot = mFreeSlots[--mFreeCount];
+        mSize++;
+        mOlder[slot] = mNewest;
+        mNewer[slot] = NONE;
+        if (mNewest == NONE) {
+            mOldest = slot;
+        } else {
+            mNewer[mNewest] = slot;
+        }
+        mNewest = slot;
+        mItem[slot] = item;
+        mLostMillis[slot] = nowMillis;
+        mCenterX[slot] = face.getCenterX();
+        mCenterY[slot] = face.getCenterY();
+        mWidth[slot] = face.width;
+        mVelocityX[slot] = velocityX;
+        mVelocityY[slot] = velocityY;
+        mSmiling[slot] = face.smilingProbability;
+        mLeftEyeOpen[slot] = face.leftEyeOpenProbability;
+        mRightEyeOpen[slot] = face.rightEyeOpenProbability;
+
+        int cell = cellKey(cellIndex(mCenterX[slot]), cellIndex(mCenterY[slot]));
+        mCell[slot] = cell;
+        mNextInCell[slot] = mCellHead.get(cell, NONE);
+        mCellHead.put(cell, slot);
+    }
+
+    /**
+     * Finds the lost track that best matches a new face, and removes it from the cache.
+     *
+     * @return the item of the matching track, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public T take(FaceObservation face, long nowMillis) {
+        evictExpired(nowMillis);
+        if (mSize == 0) {
+            return null;
+        }
+
+        float centerX = face.getCenterX();
+        float centerY = face.getCenterY();
+        // A lost face may have moved up to one cell since it was indexed, on top of the match
+        // distance; predictions further than that are clamped.
+        float radius = face.width * MAX_DISTANCE_WIDTHS + mCellSize;
+        int minCellX = cellIndex(centerX - radius);
+        int maxCellX = cellIndex(centerX + radius);
+        int minCellY = cellIndex(centerY - radius);
+        int maxCellY = cellIndex(centerY + radius);
+
+        int best = NONE;
+        float bestScore = Float.MAX_VALUE;
+        for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                int slot = mCellHead.get(cellKey(cellX, cellY), NONE);
+                for (; slot != NONE; slot = mNextInCell[slot]) {
+                    float score = score(slot, face, centerX, centerY, nowMillis);
+                    if (score < bestScore) {
+                        bestScore = score;
+                        best = slot;
+                    }
+                }
+            }
+        }
+        if (best == NONE) {
+            return null;
+        }
+
+        T item = (T) mItem[best];
+        remove(best);
+        return item;
+    }
+
+    /**
+     * Evicts the tracks lost for longer than the maximum age.
+     */
+    public void evictExpired(long nowMillis) {
+        while (mOldest != NONE && nowMillis - mLostMillis[mOldest] > mMaxAgeMillis) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Evicts every track.
+     */
+    public void clear() {
+        while (mOldest != NONE) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Returns the match score of a cached track for a face, lower is better, or
+     * {@link Float#MAX_VALUE} if it does not match.
+     */
+    private float score(int slot, FaceObservation face, float centerX, float centerY,
+                        long nowMillis) {
+        float sizeRatio = face.width / mWidth[slot];
+        if (sizeRatio > MAX_SIZE_RATIO || sizeRatio < 1.0f / MAX_SIZE_RATIO) {
+            return Float.MAX_VALUE;
+        }
+
+        long elapsed = nowMillis - mLostMillis[slot];
+        float predictedX = mCenterX[slot] + clamp(mVelocityX[slot] * elapsed, mCellSize);
+        float predictedY = mCenterY[slot] + clamp(mVelocityY[slot] * elapsed, mCellSize);
+        float dx = (centerX - predictedX) / face.width;
+        float dy = (centerY - predictedY) / face.width;
+        float distance2 = dx * dx + dy * dy;
+        if (distance2 > MAX_DISTANCE_WIDTHS * MAX_DISTANCE_WIDTHS) {
+            return Float.MAX_VALUE;
+        }
+
+        float sizeTerm = sizeRatio - 1.0f;
+        return distance2 + sizeTerm * sizeTerm + PROFILE_WEIGHT * profileDistance(slot, face);
+    }
+
+    /**
+     * Returns the mean difference of the classification probabilities known for both faces.
+     */
+    private float profileDistance(int slot, FaceObservation face) {
+        float sum = 0.0f;
+        int count = 0;
+        if (mSmiling[slot] >= 0 && face.smilingProbability >= 0) {
+            sum += Math.abs(mSmiling[slot] - face.smilingProbability);
+            count++;
+        }
+        if (mLeftEyeOpen[slot] >= 0 && face.leftEyeOpenProbability >= 0) {
+            sum += Math.abs(mLeftEyeOpen[slot] - face.leftEyeOpenProbability);
+            count++;
+        }
+        if (mRightEyeOpen[slot] >= 0 && face.rightEyeOpenProbability >= 0) {
+            sum += Math.abs(mRightEyeOpen[slot] - face.rightEyeOpenProbability);
+            count++;
+        }
+        return count == 0 ? 0.0f : sum / count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void evictOldest() {
+        T item = (T) mItem[mOldest];
+        remove(mOldest);
+        mListener.onEvicted(item);
+    }
+
+    /**
+     * Unlinks a slot from the loss order and the grid index, and frees it.
+     */
+    private void remove(int slot) {
+        if (mOlder[slot] == NONE) {
+            mOldest = mNewer[slot];
+        } else {
+            mNewer[mOlder[slot]] = mNewer[slot];
+        }
+        if (mNewer[slot] == NONE) {
+            mNewest = mOlder[slot];
+        } else {
+            mOlder[mNewer[slot]] = mOlder[slot];
+        }
+
+        int cell = mCell[slot];
+        int head = mCellHead.get(cell, NONE);
+        if (head == slot) {
+            if (mNextInCell[slot] == NONE) {
+                mCellHead.remove(cell);
+            } else {
+                mCellHead.put(cell, mNextInCell[slot]);
+            }
+        } else {
+            int previous = head;
+            while (mNextInCell[previous] != slot) {
+                previous = mNextInCell[previous];
+            }
+            mNextInCell[previous] = mNextInCell[slot];
+        }
+        mItem[slot] = null;
+        mFreeSlots[mFreeCount++] = slot;
+        mSize--;
+    }
+
+    private int cellIndex(float coordinate) {
+        return (int) Math.floor(coordinate / mCellSize);
+    }
+
+    private static int cellKey(int cellX, int cellY) {
+        return (cellX << 16) ^ (cellY & 0xffff);
+    }
+
+    private static float clamp(float value, float limit) {
+        return Math.max(-limit, Math.min(limit, value));
+    }
+}
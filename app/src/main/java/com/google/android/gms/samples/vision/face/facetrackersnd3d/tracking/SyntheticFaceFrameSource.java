@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking;
+
+import java.util.Random;
+
+/**
+ * Generates faces moving across the preview frame at a fixed frame rate.  Faces bounce off the
+ * edges, turn their heads, and now and then disappear for a few frames; a face hidden for longer
+ * than {@link #LOST_TRACK_FRAMES} comes back with a new id, as the detector would assign.  A
+ * fraction of the faces can be still, neither moving nor turning.
+ */
+public final class SyntheticFaceFrameSource implements FaceFrameSource {
+    public static final int PREVIEW_WIDTH = 480;
+    public static final int PREVIEW_HEIGHT = 640;
+    static final int LOST_TRACK_FRAMES = 5;
+    private static final int MAX_HIDDEN_FRAMES = 10;
+
+    private final int mFaceCount;
+    private final int mFrameCount;
+    private final double mFrameIntervalMillis;
+    private final float mHideProbability;
+    private final Random mRandom;
+
+    private final FaceObservation[] mFaces;
+    private final float[] mVelocityX;
+    private final float[] mVelocityY;
+    private final float[] mTurnRate;
+    private final int[] mHiddenFrames;
+    private final int[] mHiddenFor;
+    private int mNextId;
+    private int mFrame;
+
+    /**
+     * @param faceCount number of faces in the scene
+     * @param fps frame rate
+     * @param frameCount number of frames to generate
+     * @param hideProbability probability for a visible face to disappear on a given frame
+     * @param stillFraction fraction of the faces that stay still
+     * @param seed random seed, for repeatable runs
+     */
+    public SyntheticFaceFrameSource(int faceCount, float fps, int frameCount,
+                                    float hideProbability, float stillFraction, long seed) {
+        mFaceCount = faceCount;
+        mFrameCount = frameCount;
+        mFrameIntervalMillis = 1000.0 / fps;
+        mHideProbability = hideProbability;
+        mRandom = new Random(seed);
+
+        mFaces = new FaceObservation[faceCount];
+        mVelocityX = new float[faceCount];
+        mVelocityY = new float[faceCount];
+        mTurnRate = new float[faceCount];
+        int stillCount = Math.round(faceCount * stillFraction);
+        mHiddenFrames = new int[faceCount];
+        mHiddenFor = new int[faceCount];
+        for (int i = 0; i < faceCount; i++) {
+            FaceObservation face = new FaceObservation();
+            face.id = mNextId++;
+            face.width = 40.0f + mRandom.nextFloat() * 200.0f;
+            face.height = face.width * 1.2f;
+            face.x = mRandom.nextFloat() * (PREVIEW_WIDTH - face.width);
+            face.y = mRandom.nextFloat() * (PREVIEW_HEIGHT - face.height);
+            face.eulerY = (mRandom.nextFloat() - 0.5f) * 120.0f;
+            face.eulerZ = (mRandom.nextFloat() - 0.5f) * 60.0f;
+            face.smilingProbability = mRandom.nextFloat();
+            face.leftEyeOpenProbability = mRandom.nextFloat();
+            face.rightEyeOpenProbability = mRandom.nextFloat();
+            mFaces[i] = face;
+            mVelocityX[i] = (mRandom.nextFloat() - 0.5f) * 8.0f;
+            mVelocityY[i] = (mRandom.nextFloat() - 0.5f) * 8.0f;
+            mTurnRate[i] = 1.0f;
+            if (i < stillCount) {
+                mVelocityX[i] = 0.0f;
+                mVelocityY[i] = 0.0f;
+                mTurnRate[i] = 0.0f;
+            }
+        }
+    }
+
+    @Override
+    public boolean nextFrame(FaceFrame frame) {
+        if (mFrame >= mFrameCount) {
+            return false;
+        }
+        frame.reset((long) (mFrame * mFrameIntervalMillis));
+        mFrame++;
+
+        for (int i = 0; i < mFaceCount; i++) {
+            FaceObservation face = mFaces[i];
+            move(i, face);
+
+            if (mHiddenFor[i] > 0) {
+                if (++mHiddenFrames[i] < mHiddenFor[i]) {
+                    continue;
+                }
+                if (mHiddenFrames[i] > LOST_TRACK_FRAMES) {
+                    face.id = mNextId++;
+                }
+                mHiddenFor[i] = 0;
+            } else if (mRandom.nextFloat() < mHideProbability) {
+                mHiddenFor[i] = 1 + mRandom.nextInt(MAX_HIDDEN_FRAMES);
+                mHiddenFrames[i] = 0;
+                continue;
+            }
+
+            frame.add().set(face);
+        }
+        return true;
+    }
+
+    private void move(int i, FaceObservation face) {
+        face.x += mVelocityX[i];
+        face.y += mVelocityY[i];
+        if (face.x < 0 || face.x + face.width > PREVIEW_WIDTH) {
+            mVelocityX[i] = -mVelocityX[i];
+        }
+        if (face.y < 0 || face.y + face.height > PREVIEW_HEIGHT) {
+            mVelocityY[i] = -mVelocityY[i];
+        }
+        face.eulerY += mTurnRate[i];
+        if (face.eulerY > 60.0f) {
+            face.eulerY -= 120.0f;
+        }
+    }
+}
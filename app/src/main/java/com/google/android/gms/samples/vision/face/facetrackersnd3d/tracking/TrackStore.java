@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking;
+
+import java.util.Arrays;
+
+/**
+ * Items indexed by track id, stored in a dense slot array.  Add, lookup, visibility changes and
+ * removal are O(1) and do not allocate once the store has grown to the number of tracks.<p>
+ *
+ * Iteration walks the slots in order: an item keeps its slot for as long as it is in the store,
+ * so the iteration order is stable from frame to frame.  Freed slots are reused by later items.
+ * Items carry a visibility flag so that temporarily missing tracks can be hidden without being
+ * removed and re-added.<p>
+ *
+ * Iterate with:
+ * <pre>
+ *   for (int slot = 0; slot &lt; store.getSlotCount(); slot++) {
+ *       T item = store.getVisibleItem(slot);
+ *       if (item != null) { ... }
+ *   }
+ * </pre>
+ * Not thread safe.
+ */
+public final class TrackStore<T> {
+    private static final int EMPTY = -1;
+
+    // Open addressing hash table from track id to slot, with linear probing.
+    private int[] mKeys;
+    private int[] mSlotOfKey;
+    private int mMask;
+
+    // Dense slots.
+    private Object[] mItems;
+    private int[] mIds;
+    private boolean[] mVisible;
+    private int mSlotCount;
+    private int[] mFreeSlots;
+    private int mFreeCount;
+    private int mSize;
+
+    public TrackStore() {
+        this(16);
+    }
+
+    public TrackStore(int initialCapacity) {
+        int capacity = 8;
+        while (capacity < initialCapacity) {
+            capacity <<= 1;
+        }
+        mItems = new Object[capacity];
+        mIds = new int[capacity];
+        mVisible = new boolean[capacity];
+        mFreeSlots = new int[capacity];
+        allocateTable(capacity * 2);
+    }
+
+    /**
+     * Returns the number of items in the store.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns the number of slots to iterate over, including free ones.
+     */
+    public int getSlotCount() {
+        return mSlotCount;
+    }
+
+    /**
+     * Returns the item in {@code slot} if it is visible, null if it is hidden or the slot is
+     * free.
+     */
+    @SuppressWarnings("unchecked")
+    public T getVisibleItem(int slot) {
+        return mVisible[slot] ? (T) mItems[slot] : null;
+    }
+
+    /**
+     * Returns the item in {@code slot}, null if the slot is free.
+     */
+    @SuppressWarnings("unchecked")
+    public T getItem(int slot) {
+        return (T) mItems[slot];
+    }
+
+    /**
+     * Returns the item for a track id, null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int id) {
+        int slot = findSlot(id);
+        return slot == EMPTY ? null : (T) mItems[slot];
+    }
+
+    /**
+     * Adds or replaces the item for a track id.  A new item starts with the given visibility; a
+     * replaced item keeps its slot.
+     *
+     * @param item item to store, not null
+     */
+    public void put(int id, T item, boolean visible) {
+        int slot = findSlot(id);
+        if (slot == EMPTY) {
+            slot = allocateSlot();
+            insertKey(id, slot);
+            mIds[slot] = id;
+            mSize++;
+        }
+        mItems[slot] = item;
+        mVisible[slot] = visible;
+    }
+
+    /**
+     * Shows or hides the item for a track id.
+     *
+     * @return false if there is no item for the id
+     */
+    public boolean setVisible(int id, boolean visible) {
+        int slot = findSlot(id);
+        if (slot == EMPTY) {
+            return false;
+        }
+        mVisible[slot] = visible;
+        return true;
+    }
+
+    /**
+     * Removes the item for a track id and frees its slot.
+     *
+     * @return the removed item, null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public T remove(int id) {
+        int index = findIndex(id);
+        if (index == EMPTY) {
+            return null;
+        }
+        int slot = mSlotOfKey[index];
+        deleteIndex(index);
+
+        T item = (T) mItems[slot];
+        mItems[slot] = null;
+        mVisible[slot] = false;
+        mSize--;
+        if (slot == mSlotCount - 1) {
+            mSlotCount--;
+        } else {
+            mFreeSlots[mFreeCount++] = slot;
+        }
+        return item;
+    }
+
+    /**
+     * Removes all items.
+     */
+    public void clear() {
+        Arrays.fill(mItems, 0, mSlotCount, null);
+        Arrays.fill(mVisible, 0, mSlotCount, false);
+        Arrays.fill(mSlotOfKey, EMPTY);
+        mSlotCount = 0;
+        mFreeCount = 0;
+        mSize = 0;
+    }
+
+    private int findSlot(int id) {
+        int index = findIndex(id);
+        return index == EMPTY ? EMPTY : mSlotOfKey[index];
+    }
+
+    private int findIndex(int id) {
+        for (int i = hash(id) & mMask; ; i = (i + 1) & mMask) {
+            if (mSlotOfKey[i] == EMPTY) {
+                return EMPTY;
+            }
+            if (mKeys[i] == id) {
+                return i;
+            }
+        }
+    }
+
+    private int allocateSlot() {
+        if (mFreeCount > 0) {
+            return mFreeSlots[--mFreeCount];
+        }
+        if (mSlotCount == mItems.length) {
+            grow();
+        }
+        return mSlotCount++;
+    }
+
+    private void insertKey(int id, int slot) {
+        int i = hash(id) & mMask;
+        while (mSlotOfKey[i] != EMPTY) {
+            i = (i + 1) & mMask;
+        }
+        mKeys[i] = id;
+        mSlotOfKey[i] = slot;
+    }
+
+    /**
+     * Deletes a table entry, shifting back the entries of its probe sequence so that no
+     * tombstones are needed.
+     */
+    private void deleteIndex(int index) {
+        int hole = index;
+        for (int i = (hole + 1) & mMask; mSlotOfKey[i] != EMPTY; i = (i + 1) & mMask) {
+            int home = hash(mKeys[i]) & mMask;
+            // Move the entry into the hole unless its home lies cyclically in (hole, i].
+            boolean homeBetween = hole <= i ? (home > hole && home <= i) : (home > hole || home <= i);
+            if (!homeBetween) {
+                mKeys[hole] = mKeys[i];
+                mSlotOfKey[hole] = mSlotOfKey[i];
+                hole = i;
+            }
+        }
+        mSlotOfKey[hole] = EMPTY;
+    }
+
+    private void grow() {
+        int capacity = mItems.length * 2;
+        mItems = Arrays.copyOf(mItems, capacity);
+        mIds = Arrays.copyOf(mIds, capacity);
+        mVisible = Arrays.copyOf(mVisible, capacity);
+        mFreeSlots = Arrays.copyOf(mFreeSlots, capacity);
+
+        allocateTable(capacity * 2);
+        for (int slot = 0; slot < mSlotCount; slot++) {
+            if (mItems[slot] != null) {
+                insertKey(mIds[slot], slot);
+            }
+        }
+    }
+
+    private void allocateTable(int size) {
+        mKeys = new int[size];
+        mSlotOfKey = new int[size];
+        Arrays.fill(mSlotOfKey, EMPTY);
+        mMask = size - 1;
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera;
+
+import android.content.Context;
+import android.graphics.ImageFormat;
+import android.graphics.SurfaceTexture;
+import android.hardware.Camera;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.Surface;
+import android.view.SurfaceHolder;
+import android.view.WindowManager;
+
+import com.google.android.gms.common.images.Size;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.frame.FrameBuffer;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.frame.FrameBufferPool;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.frame.FrameSource;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.frame.LatestFrameExchange;
+import com.google.android.gms.vision.CameraSource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * {@link FrameSource} over the device camera.  Preview frames are delivered into a few camera
+ * callback buffers, copied into pooled direct buffers and handed over right away, so the camera
+ * never waits for the detector.  The camera is opened and driven from a dedicated thread, which
+ * also receives the preview callbacks, to keep the copies off the UI thread.<p>
+ *
+ * Configured like the Play Services {@code CameraSource}, through a {@link Builder}.
+ */
+@SuppressWarnings("deprecation")
+public class CameraFrameSource implements FrameSource {
+    private static final String TAG = "CameraFrameSource";
+    private static final int CALLBACK_BUFFER_COUNT = 3;
+    private static final int POOL_CAPACITY = 3;
+    // Any texture name works for the texture receiving the preview when it is not displayed.
+    private static final int DUMMY_TEXTURE_NAME = 100;
+
+    private final Context mContext;
+    private final int mFacing;
+    private final int mRequestedPreviewWidth;
+    private final int mRequestedPreviewHeight;
+    private final float mRequestedFps;
+    private final boolean mAutoFocusEnabled;
+
+    private HandlerThread mCameraThread;
+    private Handler mCameraHandler;
+    // Only touched on the camera thread once started.
+    private Camera mCamera;
+    private SurfaceTexture mDummySurfaceTexture;
+    private LatestFrameExchange mOutput;
+    private int mNextFrameId;
+
+    private volatile SurfaceHolder mPreviewDisplay;
+    private volatile Size mPreviewSize;
+    private volatile int mRotation;
+    private volatile FrameBufferPool mPool;
+
+    /**
+     * Builder for a {@link CameraFrameSource}, with the same defaults as the Play Services
+     * {@code CameraSource.Builder}.
+     */
+    public static class Builder {
+        private final Context mContext;
+        private int mFacing = CameraSource.CAMERA_FACING_BACK;
+        private int mRequestedPreviewWidth = 1024;
+        private int mRequestedPreviewHeight = 768;
+        private float mRequestedFps = 30.0f;
+        private boolean mAutoFocusEnabled;
+
+        public Builder(Context context) {
+            mContext = context.getApplicationContext();
+        }
+
+        /**
+         * Sets the camera to use, {@code CameraSource.CAMERA_FACING_BACK} or
+         * {@code CameraSource.CAMERA_FACING_FRONT}.
+         */
+        public Builder setFacing(int facing) {
+            mFacing = facing;
+            return this;
+        }
+
+        /**
+         * Sets the preview size to pick the closest supported size to.
+         */
+        public Builder setRequestedPreviewSize(int width, int height) {
+            mRequestedPreviewWidth = width;
+            mRequestedPreviewHeight = height;
+            return this;
+        }
+
+        public Builder setRequestedFps(float fps) {
+            mRequestedFps = fps;
+            return this;
+        }
+
+        /**
+         * Enables continuous video autofocus when the camera supports it.
+         */
+        public Builder setAutoFocusEnabled(boolean autoFocusEnabled) {
+            mAutoFocusEnabled = autoFocusEnabled;
+            return this;
+        }
+
+        public CameraFrameSource build() {
+            return new CameraFrameSource(this);
+        }
+    }
+
+    private CameraFrameSource(Builder builder) {
+        mContext = builder.mContext;
+        mFacing = builder.mFacing;
+        mRequestedPreviewWidth = builder.mRequestedPreviewWidth;
+        mRequestedPreviewHeight = builder.mRequestedPreviewHeight;
+        mRequestedFps = builder.mRequestedFps;
+        mAutoFocusEnabled = builder.mAutoFocusEnabled;
+    }
+
+    /**
+     * Sets the surface showing the preview from the next start.  Without one, the preview goes
+     * to an offscreen texture.
+     */
+    public void setPreviewDisplay(SurfaceHolder holder) {
+        mPreviewDisplay = holder;
+    }
+
+    /**
+     * Returns the preview size, or null before the first start.
+     */
+    public Size getPreviewSize() {
+        return mPreviewSize;
+    }
+
+    public int getCameraFacing() {
+        return mFacing;
+    }
+
+    @Override
+    public FrameBufferPool getBufferPool() {
+        return mPool;
+    }
+
+    /**
+     * Opens the camera and starts delivering preview frames to {@code output}.  Returns once the
+     * preview is running.
+     */
+    @Override
+    public synchronized void start(final LatestFrameExchange output) throws IOException {
+        if (mCameraThread != null) {
+            return;
+        }
+        mCameraThread = new TrackedHandlerThread(TAG);
+        mCameraThread.start();
+        mCameraHandler = new Handler(mCameraThread.getLooper());
+
+        final int displayRotation = ((WindowManager) mContext.getSystemService(
+                Context.WINDOW_SERVICE)).getDefaultDisplay().getRotation();
+        try {
+            runOnCameraThread(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    openCamera(output, displayRotation);
+                    return null;
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            stop();
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the preview and closes the camera.  No frame is delivered once this returns.
+     */
+    @Override
+    public synchronized void stop() {
+        if (mCameraThread == null) {
+            return;
+        }
+        try {
+            runOnCameraThread(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    closeCamera();
+                    return null;
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Failed to close camera.", e);
+        }
+        mCameraThread.quitSafely();
+        try {
+            mCameraThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mCameraThread = null;
+        mCameraHandler = null;
+    }
+
+    private void openCamera(LatestFrameExchange output, int displayRotation) throws IOException {
+        int cameraId = getIdForFacing(mFacing);
+        if (cameraId == -1) {
+            throw new IOException("Could not find requested camera.");
+        }
+        Camera camera = Camera.open(cameraId);
+        try {
+            Camera.Parameters parameters = camera.getParameters();
+            Camera.Size size = choosePreviewSize(parameters.getSupportedPreviewSizes());
+            parameters.setPreviewSize(size.width, size.height);
+            int[] fpsRange = chooseFpsRange(parameters.getSupportedPreviewFpsRange());
+            if (fpsRange != null) {
+                parameters.setPreviewFpsRange(fpsRange[Camera.Parameters.PREVIEW_FPS_MIN_INDEX],
+                        fpsRange[Camera.Parameters.PREVIEW_FPS_MAX_INDEX]);
+            }
+            parameters.setPreviewFormat(ImageFormat.NV21);
+            if (mAutoFocusEnabled && parameters.getSupportedFocusModes().contains(
+                    Camera.Parameters.FOCUS_MODE_CONTINUOUS_VIDEO)) {
+                parameters.setFocusMode(Camera.Parameters.FOCUS_MODE_CONTINUOUS_VIDEO);
+            }
+            setRotation(camera, parameters, cameraId, displayRotation);
+            camera.setParameters(parameters);
+
+            FrameBufferPool pool = mPool;
+            if (pool == null || pool.getWidth() != size.width || pool.getHeight() != size.height) {
+                pool = new FrameBufferPool(POOL_CAPACITY, size.width, size.height);
+                mPool = pool;
+            }
+            for (int i = 0; i < CALLBACK_BUFFER_COUNT; i++) {
+                camera.addCallbackBuffer(new byte[pool.getBufferSize()]);
+            }
+            camera.setPreviewCallbackWithBuffer(new PreviewCallback());
+
+            SurfaceHolder display = mPreviewDisplay;
+            if (display != null) {
+                camera.setPreviewDisplay(display);
+            } else {
+                mDummySurfaceTexture = new SurfaceTexture(DUMMY_TEXTURE_NAME);
+                camera.setPreviewTexture(mDummySurfaceTexture);
+            }
+            mOutput = output;
+            mPreviewSize = new Size(size.width, size.height);
+            camera.startPreview();
+            mCamera = camera;
+        } catch (IOException | RuntimeException e) {
+            camera.release();
+            throw e;
+        }
+    }
+
+    private void closeCamera() {
+        if (mCamera == null) {
+            return;
+        }
+        mCamera.stopPreview();
+        mCamera.setPreviewCallbackWithBuffer(null);
+        mCamera.release();
+        mCamera = null;
+        mOutput = null;
+        if (mDummySurfaceTexture != null) {
+            mDummySurfaceTexture.release();
+            mDummySurfaceTexture = null;
+        }
+    }
+
+    /**
+     * Copies each preview frame into a pooled buffer and gives the camera buffer back.  Runs on
+     * the camera thread.
+     */
+    private class PreviewCallback implements Camera.PreviewCallback {
+        @Override
+        public void onPreviewFrame(byte[] data, Camera camera) {
+            int frameId = mNextFrameId++;
+            FrameBuffer frame = mPool.acquire();
+            if (frame != null && mOutput != null) {
+                Size size = mPreviewSize;
+                frame.getData().put(data, 0, frame.getData().remaining());
+                frame.getData().flip();
+                frame.setMetadata(size.getWidth(), size.getHeight(), frameId, System.nanoTime(),
+                        mRotation);
+                mOutput.offer(frame);
+            } else if (frame != null) {
+                frame.release();
+            }
+            camera.addCallbackBuffer(data);
+        }
+    }
+
+    private void runOnCameraThread(Callable<Void> task) throws IOException {
+        FutureTask<Void> future = new FutureTask<>(task);
+        mCameraHandler.post(future);
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the camera.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static int getIdForFacing(int facing) {
+        Camera.CameraInfo cameraInfo = new Camera.CameraInfo();
+        for (int i = 0; i < Camera.getNumberOfCameras(); ++i) {
+            Camera.getCameraInfo(i, cameraInfo);
+            if (cameraInfo.facing == facing) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the supported size closest to the requested one.
+     */
+    private Camera.Size choosePreviewSize(List<Camera.Size> sizes) {
+        Camera.Size best = null;
+        int bestDiff = Integer.MAX_VALUE;
+        for (Camera.Size size : sizes) {
+            int diff = Math.abs(size.width - mRequestedPreviewWidth)
+                    + Math.abs(size.height - mRequestedPreviewHeight);
+            if (diff < bestDiff) {
+                best = size;
+                bestDiff = diff;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the supported fps range whose bounds are closest to the requested rate.
+     */
+    private int[] chooseFpsRange(List<int[]> ranges) {
+        int desired = (int) (mRequestedFps * 1000.0f);
+        int[] best = null;
+        int bestDiff = Integer.MAX_VALUE;
+        for (int[] range : ranges) {
+            int diff = Math.abs(desired - range[Camera.Parameters.PREVIEW_FPS_MIN_INDEX])
+                    + Math.abs(desired - range[Camera.Parameters.PREVIEW_FPS_MAX_INDEX]);
+            if (diff < bestDiff) {
+                best = range;
+                bestDiff = diff;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Orients the preview display for the current screen rotation, and computes the rotation
+     * the detector must apply to the frames to see them upright.
+     */
+    private void setRotation(Camera camera, Camera.Parameters parameters, int cameraId,
+                             int displayRotation) {
+        int degrees;
+        switch (displayRotation) {
+            case Surface.ROTATION_90:
+                degrees = 90;
+                break;
+            case Surface.ROTATION_180:
+                degrees = 180;
+                break;
+            case Surface.ROTATION_270:
+                degrees = 270;
+                break;
+            default:
+                degrees = 0;
+                break;
+        }
+
+        Camera.CameraInfo cameraInfo = new Camera.CameraInfo();
+        Camera.getCameraInfo(cameraId, cameraInfo);
+        int angle;
+        int displayAngle;
+        if (cameraInfo.facing == Camera.CameraInfo.CAMERA_FACING_FRONT) {
+            angle = (cameraInfo.orientation + degrees) % 360;
+            // Compensate for the mirror of the front camera.
+            displayAngle = (360 - angle) % 360;
+        } else {
+            angle = (cameraInfo.orientation - degrees + 360) % 360;
+            displayAngle = angle;
+        }
+
+        mRotation = angle / 90;
+        camera.setDisplayOrientation(displayAngle);
+        parameters.setRotation(angle);
+    }
+}
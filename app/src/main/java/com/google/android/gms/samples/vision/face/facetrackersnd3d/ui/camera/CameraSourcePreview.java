@@ -24,7 +24,6 @@ import android.view.SurfaceView;
 import android.view.ViewGroup;
 
 import com.google.android.gms.common.images.Size;
-import com.google.android.gms.vision.CameraSource;
 
 import java.io.IOException;
 
@@ -35,9 +34,9 @@ public class CameraSourcePreview extends ViewGroup {
     private SurfaceView mSurfaceView;
     private boolean mStartRequested;
     private boolean mSurfaceAvailable;
-    private CameraSource mCameraSource;
+    private PreviewSource mCameraSource;
 
-    private GraphicOverlay mOverlay;
+    private GraphicHost mOverlay;
 
     public CameraSourcePreview(Context context, AttributeSet attrs) {
         super(context, attrs);
@@ -50,7 +49,7 @@ public class CameraSourcePreview extends ViewGroup {
         addView(mSurfaceView);
     }
 
-    public void start(CameraSource cameraSource) throws IOException {
+    public void start(PreviewSource cameraSource) throws IOException {
         if (cameraSource == null) {
             stop();
         }
@@ -63,7 +62,7 @@ public class CameraSourcePreview extends ViewGroup {
         }
     }
 
-    public void start(CameraSource cameraSource, GraphicOverlay overlay) throws IOException {
+    public void start(PreviewSource cameraSource, GraphicHost overlay) throws IOException {
         mOverlay = overlay;
         start(cameraSource);
     }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera;
+
+import android.graphics.ImageFormat;
+import android.util.Log;
+import android.view.SurfaceHolder;
+
+import com.google.android.gms.common.images.Size;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.frame.FrameBuffer;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.frame.FrameBufferPool;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.frame.LatestFrameExchange;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.lifecycle.TrackedThread;
+import com.google.android.gms.vision.Detector;
+import com.google.android.gms.vision.Frame;
+
+import java.io.IOException;
+
+/**
+ * {@link PreviewSource} running a detector on the frames of a {@link CameraFrameSource}, in place
+ * of the Play Services {@code CameraSource}.  Frames go through a {@link LatestFrameExchange} to
+ * a detector thread, which always works on the latest frame and releases its buffer right after
+ * detection.<p>
+ *
+ * Frame drops and buffer reuse are logged periodically.
+ */
+public class DetectingCameraSource implements PreviewSource {
+    private static final String TAG = "DetectingCameraSource";
+    private static final String THREAD_NAME = "FrameDetector";
+    private static final int REPORT_INTERVAL_FRAMES = 300;
+
+    private final CameraFrameSource mSource;
+    private final Detector<?> mDetector;
+    private final LatestFrameExchange mExchange = new LatestFrameExchange();
+    private Thread mDetectorThread;
+    private long mDetectedCount;
+    private boolean mReleased;
+
+    public DetectingCameraSource(CameraFrameSource source, Detector<?> detector) {
+        mSource = source;
+        mDetector = detector;
+    }
+
+    @Override
+    public void start(SurfaceHolder holder) throws IOException {
+        if (mDetectorThread != null) {
+            return;
+        }
+        mExchange.open();
+        mDetectorThread = new TrackedThread(new Runnable() {
+            @Override
+            public void run() {
+                detectFrames();
+            }
+        }, THREAD_NAME);
+        mDetectorThread.start();
+
+        mSource.setPreviewDisplay(holder);
+        try {
+            mSource.start(mExchange);
+        } catch (IOException | RuntimeException e) {
+            stop();
+            throw e;
+        }
+    }
+
+    @Override
+    public void stop() {
+        mSource.stop();
+        mExchange.close();
+        if (mDetectorThread != null) {
+            try {
+                mDetectorThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            mDetectorThread = null;
+        }
+    }
+
+    @Override
+    public void release() {
+        stop();
+        if (!mReleased) {
+            mReleased = true;
+            mDetector.release();
+        }
+    }
+
+    @Override
+    public Size getPreviewSize() {
+        return mSource.getPreviewSize();
+    }
+
+    @Override
+    public int getCameraFacing() {
+        return mSource.getCameraFacing();
+    }
+
+    private void detectFrames() {
+        while (true) {
+            FrameBuffer buffer;
+            try {
+                buffer = mExchange.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (buffer == null) {
+                return;
+            }
+
+            try {
+                Frame frame = new Frame.Builder()
+                        .setImageData(buffer.getData(), buffer.getWidth(), buffer.getHeight(),
+                                ImageFormat.NV21)
+                        .setId(buffer.getFrameId())
+                        .setTimestampMillis(buffer.getTimestampNanos() / 1000000)
+                        .setRotation(buffer.getRotation())
+                        .build();
+                mDetector.receiveFrame(frame);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Exception thrown from receiver.", e);
+            } finally {
+                buffer.release();
+            }
+
+            mDetectedCount++;
+            if (mDetectedCount % REPORT_INTERVAL_FRAMES == 0) {
+                FrameBufferPool pool = mSource.getBufferPool();
+                Log.d(TAG, "frames: " + mDetectedCount
+                        + " dropped waiting: " + mExchange.getDroppedCount()
+                        + " dropped no buffer: " + pool.getMissCount()
+                        + " buffer reuse: " + (int) (pool.getReuseRate() * 100) + "%");
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bitmap holding pre-rendered text for overlay labels, so that drawing a label is a few bitmap
+ * blits instead of a text layout pass.  An atlas holds the characters {@code 0-9 . -} and a fixed
+ * set of labels, rendered once for a given color and text size.<p>
+ *
+ * Atlases are shared between graphics through {@link #get(int, float, String[])}.  Drawing uses
+ * scratch rectangles owned by the atlas, so all drawing must happen on the overlay's drawing
+ * thread.
+ */
+public final class GlyphAtlas {
+    private static final String GLYPHS = "0123456789.-";
+    private static final int PADDING = 2;
+
+    private static final Map<String, GlyphAtlas> sAtlases = new HashMap<>();
+
+    private final Bitmap mBitmap;
+    private final float mAscent;
+    private final int mCellHeight;
+
+    // Source rectangles in the atlas bitmap, indexed by glyph then by label.
+    private final int[] mGlyphLeft = new int[GLYPHS.length()];
+    private final float[] mGlyphAdvance = new float[GLYPHS.length()];
+    private final int[] mLabelLeft;
+    private final float[] mLabelAdvance;
+
+    private final Rect mSrc = new Rect();
+    private final RectF mDst = new RectF();
+
+    /**
+     * Returns the atlas for the given color, text size and labels, building it on first use.
+     */
+    public static GlyphAtlas get(int color, float textSize, String[] labels) {
+        String key = color + "/" + textSize + "/" + Arrays.toString(labels);
+        synchronized (sAtlases) {
+            GlyphAtlas atlas = sAtlases.get(key);
+            if (atlas == null) {
+                atlas = new GlyphAtlas(color, textSize, labels);
+                sAtlases.put(key, atlas);
+            }
+            return atlas;
+        }
+    }
+
+    private GlyphAtlas(int color, float textSize, String[] labels) {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(color);
+        paint.setTextSize(textSize);
+
+        Paint.FontMetrics metrics = paint.getFontMetrics();
+        mAscent = metrics.ascent;
+        mCellHeight = (int) Math.ceil(metrics.descent - metrics.ascent) + PADDING;
+
+        mLabelLeft = new int[labels.length];
+        mLabelAdvance = new float[labels.length];
+
+        // Everything goes on a single row: glyphs first, then labels.
+        int width = 0;
+        for (int i = 0; i < GLYPHS.length(); i++) {
+            mGlyphLeft[i] = width;
+            mGlyphAdvance[i] = paint.measureText(GLYPHS, i, i + 1);
+            width += (int) Math.ceil(mGlyphAdvance[i]) + PADDING;
+        }
+        for (int i = 0; i < labels.length; i++) {
+            mLabelLeft[i] = width;
+            mLabelAdvance[i] = paint.measureText(labels[i]);
+            width += (int) Math.ceil(mLabelAdvance[i]) + PADDING;
+        }
+
+        mBitmap = Bitmap.createBitmap(Math.max(1, width), mCellHeight, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(mBitmap);
+        float baseline = -mAscent;
+        for (int i = 0; i < GLYPHS.length(); i++) {
+            canvas.drawText(GLYPHS, i, i + 1, mGlyphLeft[i], baseline, paint);
+        }
+        for (int i = 0; i < labels.length; i++) {
+            canvas.drawText(labels[i], mLabelLeft[i], baseline, paint);
+        }
+    }
+
+    /**
+     * Draws the label at {@code index} in the labels the atlas was built with.
+     *
+     * @param x left of the text
+     * @param y baseline of the text, as for {@link Canvas#drawText(String, float, float, Paint)}
+     * @return x position following the label
+     */
+    public float drawLabel(Canvas canvas, int index, float x, float y) {
+        return blit(canvas, mLabelLeft[index], mLabelAdvance[index], x, y);
+    }
+
+    /**
+     * Draws {@code count} chars of {@code text} starting at {@code start}.  Chars missing from
+     * the atlas are skipped.
+     *
+     * @param x left of the text
+     * @param y baseline of the text
+     * @return x position following the text
+     */
+    public float drawChars(Canvas canvas, char[] text, int start, int count, float x, float y) {
+        for (int i = start; i < start + count; i++) {
+            int glyph = GLYPHS.indexOf(text[i]);
+            if (glyph >= 0) {
+                x = blit(canvas, mGlyphLeft[glyph], mGlyphAdvance[glyph], x, y);
+            }
+        }
+        return x;
+    }
+
+    private float blit(Canvas canvas, int left, float advance, float x, float y) {
+        int width = (int) Math.ceil(advance);
+        mSrc.set(left, 0, left + width, mCellHeight);
+        float top = y + mAscent;
+        mDst.set(x, top, x + width, top + mCellHeight);
+        canvas.drawBitmap(mBitmap, mSrc, mDst, null);
+        return x + advance;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera;
+
+/**
+ * A surface that renders {@link GraphicOverlay.Graphic} items on top of the camera preview.
+ * {@link GraphicOverlay} draws them on the UI thread; {@link TextureGraphicOverlay} draws them on
+ * its own render thread.  Either can be used in the layout, the graphics do not need to know
+ * which.
+ */
+public interface GraphicHost {
+    /**
+     * Removes all graphics from the overlay, and increments the {@link #getGeneration()
+     * generation}.
+     */
+    void clear();
+
+    /**
+     * Returns a counter incremented on every {@link #clear()}.  Owners of graphics compare it
+     * with the value seen when they added their graphic to know when to add it back.
+     */
+    int getGeneration();
+
+    /**
+     * Adds or replaces the graphic for a track id.
+     */
+    void add(int id, GraphicOverlay.Graphic graphic, boolean visible);
+
+    /**
+     * Shows or hides the graphic for a track id, e.g. while the face is missing.  Cheaper than
+     * removing and adding it back.
+     */
+    void setVisible(int id, boolean visible);
+
+    /**
+     * Removes the graphic for a track id from the overlay.
+     */
+    void remove(int id);
+
+    /**
+     * Sets the camera attributes for size and facing direction, which informs how to transform
+     * image coordinates later.
+     */
+    void setCameraInfo(int previewWidth, int previewHeight, int facing);
+
+    /**
+     * Returns the ratio between the overlay width and the preview width.
+     */
+    float getWidthScaleFactor();
+
+    /**
+     * Returns the ratio between the overlay height and the preview height.
+     */
+    float getHeightScaleFactor();
+
+    /**
+     * Returns the camera facing, which decides whether graphics are mirrored.
+     */
+    int getFacing();
+
+    /**
+     * Returns the overlay width in pixels.
+     */
+    int getWidth();
+
+    /**
+     * Requests a redraw of the overlay.  May be called from any thread.
+     */
+    void postInvalidate();
+
+    /**
+     * Shows a performance HUD on top of the graphics, refreshed while it is shown, or hides it
+     * when {@code hud} is null.  Call from the UI thread.
+     */
+    void setHud(PerformanceHud hud);
+}
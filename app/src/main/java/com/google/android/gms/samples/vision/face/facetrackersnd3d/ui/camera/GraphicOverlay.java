@@ -20,11 +20,10 @@ import android.graphics.Canvas;
 import android.util.AttributeSet;
 import android.view.View;
 
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics.AppMetrics;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking.TrackStore;
 import com.google.android.gms.vision.CameraSource;
 
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  * A view which renders a series of custom graphics to be overlayed on top of an associated preview
  * (i.e., the camera preview).  The creator can add graphics objects, update the objects, and remove
@@ -42,25 +41,36 @@ import java.util.Set;
  * <li>{@link Graphic#translateX(float)} and {@link Graphic#translateY(float)} adjust the coordinate
  * from the preview's coordinate system to the view coordinate system.</li>
  * </ol>
+ *
+ * Drawing happens on the UI thread in {@link #onDraw(Canvas)}.  See {@link TextureGraphicOverlay}
+ * for an overlay that draws on its own render thread instead.
  */
-public class GraphicOverlay extends View {
+public class GraphicOverlay extends View implements GraphicHost {
     private final Object mLock = new Object();
     private int mPreviewWidth;
     private float mWidthScaleFactor = 1.0f;
     private int mPreviewHeight;
     private float mHeightScaleFactor = 1.0f;
     private int mFacing = CameraSource.CAMERA_FACING_BACK;
-    private Set<Graphic> mGraphics = new HashSet<>();
+    private TrackStore<Graphic> mGraphics = new TrackStore<>();
+    private volatile int mGeneration;
+    private PerformanceHud mHud;
+    private final Runnable mHudRefresh = new Runnable() {
+        @Override
+        public void run() {
+            invalidate();
+        }
+    };
 
     /**
      * Base class for a custom graphics object to be rendered within the graphic overlay.  Subclass
      * this and implement the {@link Graphic#draw(Canvas)} method to define the
-     * graphics element.  Add instances to the overlay using {@link GraphicOverlay#add(Graphic)}.
+     * graphics element.  Add instances to the overlay using {@link GraphicHost#add(int, Graphic, boolean)}.
      */
     public static abstract class Graphic {
-        private GraphicOverlay mOverlay;
+        private GraphicHost mOverlay;
 
-        public Graphic(GraphicOverlay overlay) {
+        public Graphic(GraphicHost overlay) {
             mOverlay = overlay;
         }
 
@@ -83,14 +93,14 @@ public class GraphicOverlay extends View {
          * scale.
          */
         public float scaleX(float horizontal) {
-            return horizontal * mOverlay.mWidthScaleFactor;
+            return horizontal * mOverlay.getWidthScaleFactor();
         }
 
         /**
          * Adjusts a vertical value of the supplied value from the preview scale to the view scale.
          */
         public float scaleY(float vertical) {
-            return vertical * mOverlay.mHeightScaleFactor;
+            return vertical * mOverlay.getHeightScaleFactor();
         }
 
         /**
@@ -98,7 +108,7 @@ public class GraphicOverlay extends View {
          * system.
          */
         public float translateX(float x) {
-            if (mOverlay.mFacing == CameraSource.CAMERA_FACING_FRONT) {
+            if (mOverlay.getFacing() == CameraSource.CAMERA_FACING_FRONT) {
                 return mOverlay.getWidth() - scaleX(x);
             } else {
                 return scaleX(x);
@@ -125,29 +135,49 @@ public class GraphicOverlay extends View {
     /**
      * Removes all graphics from the overlay.
      */
+    @Override
     public void clear() {
         synchronized (mLock) {
             mGraphics.clear();
+            mGeneration++;
+        }
+        postInvalidate();
+    }
+
+    @Override
+    public int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Adds or replaces the graphic for a track id.
+     */
+    @Override
+    public void add(int id, Graphic graphic, boolean visible) {
+        synchronized (mLock) {
+            mGraphics.put(id, graphic, visible);
         }
         postInvalidate();
     }
 
     /**
-     * Adds a graphic to the overlay.
+     * Shows or hides the graphic for a track id.
      */
-    public void add(Graphic graphic) {
+    @Override
+    public void setVisible(int id, boolean visible) {
         synchronized (mLock) {
-            mGraphics.add(graphic);
+            mGraphics.setVisible(id, visible);
         }
         postInvalidate();
     }
 
     /**
-     * Removes a graphic from the overlay.
+     * Removes the graphic for a track id from the overlay.
      */
-    public void remove(Graphic graphic) {
+    @Override
+    public void remove(int id) {
         synchronized (mLock) {
-            mGraphics.remove(graphic);
+            mGraphics.remove(id);
         }
         postInvalidate();
     }
@@ -156,6 +186,7 @@ public class GraphicOverlay extends View {
      * Sets the camera attributes for size and facing direction, which informs how to transform
      * image coordinates later.
      */
+    @Override
     public void setCameraInfo(int previewWidth, int previewHeight, int facing) {
         synchronized (mLock) {
             mPreviewWidth = previewWidth;
@@ -165,6 +196,33 @@ public class GraphicOverlay extends View {
         postInvalidate();
     }
 
+    @Override
+    public float getWidthScaleFactor() {
+        return mWidthScaleFactor;
+    }
+
+    @Override
+    public float getHeightScaleFactor() {
+        return mHeightScaleFactor;
+    }
+
+    @Override
+    public int getFacing() {
+        return mFacing;
+    }
+
+    /**
+     * Shows the performance HUD over the graphics, refreshed while shown, or hides it if null.
+     */
+    @Override
+    public void setHud(PerformanceHud hud) {
+        mHud = hud;
+        if (hud == null) {
+            removeCallbacks(mHudRefresh);
+        }
+        invalidate();
+    }
+
     /**
      * Draws the overlay with its associated graphic objects.
      */
@@ -178,9 +236,20 @@ public class GraphicOverlay extends View {
                 mHeightScaleFactor = (float) canvas.getHeight() / (float) mPreviewHeight;
             }
 
-            for (Graphic graphic : mGraphics) {
-                graphic.draw(canvas);
+            for (int slot = 0; slot < mGraphics.getSlotCount(); slot++) {
+                Graphic graphic = mGraphics.getVisibleItem(slot);
+                if (graphic != null) {
+                    graphic.draw(canvas);
+                }
             }
         }
+        AppMetrics.OVERLAY_FRAMES.mark();
+
+        if (mHud != null) {
+            mHud.draw(canvas);
+            // Keep the HUD fresh while no graphic invalidates the overlay.
+            removeCallbacks(mHudRefresh);
+            postDelayed(mHudRefresh, PerformanceHud.SAMPLE_INTERVAL_MILLIS);
+        }
     }
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Build;
+import android.os.Debug;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.lifecycle.ResourceTracker;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics.AppMetrics;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.text.NumberText;
+
+/**
+ * Heads-up display of the {@link AppMetrics}, drawn by the overlay on top of the graphics so
+ * that field testers can see whether a device keeps up: detector fps, pixels scanned per frame,
+ * full frame versus region scan time, frame-to-cue latency, audio engine calls per second,
+ * playing sound objects, garbage collections, dropped frames, the live worker threads and the
+ * audio engines held by the app.<p>
+ *
+ * Metrics are sampled at most every {@link #SAMPLE_INTERVAL_MILLIS}, on the overlay's drawing
+ * thread.  Drawing uses a {@link GlyphAtlas} and does not allocate.
+ */
+public final class PerformanceHud {
+    public static final long SAMPLE_INTERVAL_MILLIS = 500;
+
+    private static final String GC_COUNT_STAT = "art.gc.gc-count";
+    private static final float TEXT_SIZE = 32.0f;
+    private static final float MARGIN = 16.0f;
+    private static final String[] LABELS = {
+            "detector fps ",
+            "kpixels per frame ",
+            "full scan ms ",
+            "roi scan ms ",
+            "frame to cue ms ",
+            "audio calls per s ",
+            "sound objects ",
+            "gc count ",
+            "dropped camera ",
+            "dropped overlay ",
+            "live threads ",
+            "engines held ",
+    };
+    private static final int LINE_COUNT = LABELS.length;
+
+    private final GlyphAtlas mAtlas;
+    private final Paint mBackgroundPaint;
+    private final float mLineHeight;
+    private final char[] mText = new char[NumberText.MAX_FIXED2_LENGTH];
+
+    private long mLastSampleNanos;
+    private float mDetectorFps;
+    private float mKilopixels;
+    private float mFullScanMillis;
+    private float mRoiScanMillis;
+    private float mFrameToCueMillis;
+    private float mAudioCallsPerSecond;
+    private long mSoundObjects;
+    private long mGcCount = -1;
+    private long mCameraDropped;
+    private long mOverlayDropped;
+    private long mLiveThreads;
+    private long mHeldEngines;
+
+    public PerformanceHud() {
+        mAtlas = GlyphAtlas.get(Color.YELLOW, TEXT_SIZE, LABELS);
+        mBackgroundPaint = new Paint();
+        mBackgroundPaint.setColor(Color.argb(160, 0, 0, 0));
+        mLineHeight = TEXT_SIZE * 1.2f;
+    }
+
+    /**
+     * Returns true when the metrics are due for a new sample, and the HUD for a redraw.
+     */
+    public boolean isSampleDue(long nowNanos) {
+        return nowNanos - mLastSampleNanos >= SAMPLE_INTERVAL_MILLIS * 1000000L;
+    }
+
+    /**
+     * Draws the HUD in the top left corner, sampling the metrics first if they are due.
+     */
+    public void draw(Canvas canvas) {
+        long now = System.nanoTime();
+        if (isSampleDue(now)) {
+            sample(now);
+        }
+
+        float top = MARGIN;
+        float left = MARGIN;
+        canvas.drawRect(0, 0, left + TEXT_SIZE * 16, top + mLineHeight * LINE_COUNT + MARGIN,
+                mBackgroundPaint);
+        float y = top + TEXT_SIZE;
+        drawFixed2(canvas, 0, mDetectorFps, left, y);
+        y += mLineHeight;
+        drawFixed2(canvas, 1, mKilopixels, left, y);
+        y += mLineHeight;
+        drawFixed2(canvas, 2, mFullScanMillis, left, y);
+        y += mLineHeight;
+        drawFixed2(canvas, 3, mRoiScanMillis, left, y);
+        y += mLineHeight;
+        drawFixed2(canvas, 4, mFrameToCueMillis, left, y);
+        y += mLineHeight;
+        drawFixed2(canvas, 5, mAudioCallsPerSecond, left, y);
+        y += mLineHeight;
+        drawInt(canvas, 6, mSoundObjects, left, y);
+        y += mLineHeight;
+        drawInt(canvas, 7, mGcCount, left, y);
+        y += mLineHeight;
+        drawInt(canvas, 8, mCameraDropped, left, y);
+        y += mLineHeight;
+        drawInt(canvas, 9, mOverlayDropped, left, y);
+        y += mLineHeight;
+        drawInt(canvas, 10, mLiveThreads, left, y);
+        y += mLineHeight;
+        drawInt(canvas, 11, mHeldEngines, left, y);
+    }
+
+    private void sample(long nowNanos) {
+        mLastSampleNanos = nowNanos;
+        mDetectorFps = AppMetrics.DETECTOR_FRAMES.sample(nowNanos);
+        mKilopixels = AppMetrics.DETECTOR_PIXELS.get() / 1000.0f;
+        mFullScanMillis = AppMetrics.DETECTOR_FULL_SCAN_TIME.sampleMeanNanos() / 1e6f;
+        mRoiScanMillis = AppMetrics.DETECTOR_ROI_SCAN_TIME.sampleMeanNanos() / 1e6f;
+        mFrameToCueMillis = AppMetrics.FRAME_TO_CUE.sampleMeanNanos() / 1e6f;
+        mAudioCallsPerSecond = AppMetrics.AUDIO_CALLS.sample(nowNanos);
+        mSoundObjects = AppMetrics.AUDIO_SOUND_OBJECTS.get();
+        mCameraDropped = AppMetrics.CAMERA_DROPPED.get();
+        mOverlayDropped = AppMetrics.OVERLAY_DROPPED.get();
+        mLiveThreads = ResourceTracker.getDefault().getLiveThreadCount();
+        mHeldEngines = ResourceTracker.getDefault().getHeldEngineCount();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            String gcCount = Debug.getRuntimeStat(GC_COUNT_STAT);
+            if (gcCount != null) {
+                try {
+                    mGcCount = Long.parseLong(gcCount);
+                    AppMetrics.GC_COUNT.set(mGcCount);
+                } catch (NumberFormatException e) {
+                    mGcCount = -1;
+                }
+            }
+        }
+    }
+
+    private void drawFixed2(Canvas canvas, int line, float value, float x, float y) {
+        x = mAtlas.drawLabel(canvas, line, x, y);
+        int length = NumberText.formatFixed2(value, mText, 0);
+        mAtlas.drawChars(canvas, mText, 0, length, x, y);
+    }
+
+    /**
+     * Draws an int value, or a dash when it is negative, i.e. not available.
+     */
+    private void drawInt(Canvas canvas, int line, long value, float x, float y) {
+        x = mAtlas.drawLabel(canvas, line, x, y);
+        int length;
+        if (value < 0) {
+            mText[0] = '-';
+            length = 1;
+        } else {
+            length = NumberText.formatInt((int) Math.min(value, Integer.MAX_VALUE), mText, 0);
+        }
+        mAtlas.drawChars(canvas, mText, 0, length, x, y);
+    }
+}
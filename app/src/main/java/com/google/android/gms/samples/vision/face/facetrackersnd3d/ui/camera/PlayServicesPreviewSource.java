@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera;
+
+import android.annotation.SuppressLint;
+import android.view.SurfaceHolder;
+
+import com.google.android.gms.common.images.Size;
+import com.google.android.gms.vision.CameraSource;
+
+import java.io.IOException;
+
+/**
+ * {@link PreviewSource} backed by the Play Services {@link CameraSource}.
+ */
+public final class PlayServicesPreviewSource implements PreviewSource {
+    private final CameraSource mCameraSource;
+
+    public PlayServicesPreviewSource(CameraSource cameraSource) {
+        mCameraSource = cameraSource;
+    }
+
+    // The activity checks the camera permission before starting the preview.
+    @SuppressLint("MissingPermission")
+    @Override
+    public void start(SurfaceHolder holder) throws IOException {
+        mCameraSource.start(holder);
+    }
+
+    @Override
+    public void stop() {
+        mCameraSource.stop();
+    }
+
+    @Override
+    public void release() {
+        mCameraSource.release();
+    }
+
+    @Override
+    public Size getPreviewSize() {
+        return mCameraSource.getPreviewSize();
+    }
+
+    @Override
+    public int getCameraFacing() {
+        return mCameraSource.getCameraFacing();
+    }
+}
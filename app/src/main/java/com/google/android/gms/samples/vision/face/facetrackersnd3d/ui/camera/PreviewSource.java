@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera;
+
+import android.view.SurfaceHolder;
+
+import com.google.android.gms.common.images.Size;
+
+import java.io.IOException;
+
+/**
+ * A camera shown by {@link CameraSourcePreview} while its frames go to a detector: either the
+ * Play Services {@code CameraSource}, through {@link PlayServicesPreviewSource}, or our own
+ * {@link DetectingCameraSource}.
+ */
+public interface PreviewSource {
+    /**
+     * Opens the camera and starts the preview on {@code holder} and the detection.
+     */
+    void start(SurfaceHolder holder) throws IOException;
+
+    /**
+     * Stops the preview and the detection, and closes the camera.  Returns once the detector
+     * thread is done with its last frame, so that the caller may then touch the state of the
+     * detector's processor.  The source may be started again.
+     */
+    void stop();
+
+    /**
+     * Stops the source and releases the detector.
+     */
+    void release();
+
+    /**
+     * Returns the preview size, or null before the first start.
+     */
+    Size getPreviewSize();
+
+    /**
+     * Returns the camera facing, {@code CameraSource.CAMERA_FACING_BACK} or
+     * {@code CameraSource.CAMERA_FACING_FRONT}.
+     */
+    int getCameraFacing();
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.SurfaceTexture;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.Surface;
+import android.view.TextureView;
+import android.view.WindowManager;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics.AppMetrics;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking.TrackStore;
+import com.google.android.gms.vision.CameraSource;
+
+
+/**
+ * Drop-in alternative to {@link GraphicOverlay} that draws the graphics on a dedicated render
+ * thread instead of the UI thread, so that layout, Snackbars and dialogs do not delay the
+ * overlay.  The {@code main_texture} layout uses it.<p>
+ *
+ * The render thread is paced by the display vsync.  On every vsync where a graphic has been
+ * invalidated, it draws the latest state of every graphic into the texture.  Graphics only keep
+ * the latest face, so intermediate detections are skipped rather than queued.<p>
+ *
+ * Frame draw time and dropped frames (vsyncs missed while a frame was pending) are available
+ * through {@link #getLastFrameTimeNanos()} and {@link #getDroppedFrameCount()}, and are logged
+ * periodically.
+ */
+public class TextureGraphicOverlay extends TextureView
+        implements GraphicHost, TextureView.SurfaceTextureListener {
+    private static final String TAG = "TextureGraphicOverlay";
+    private static final int REPORT_INTERVAL_FRAMES = 300;
+
+    private final Object mLock = new Object();
+    private int mPreviewWidth;
+    private volatile float mWidthScaleFactor = 1.0f;
+    private int mPreviewHeight;
+    private volatile float mHeightScaleFactor = 1.0f;
+    private volatile int mFacing = CameraSource.CAMERA_FACING_BACK;
+    private TrackStore<GraphicOverlay.Graphic> mGraphics = new TrackStore<>();
+    private volatile int mGeneration;
+
+    private final long mFramePeriodNanos;
+    private volatile boolean mDirty = true;
+    // When the pending frame was first requested, in System.nanoTime() like the vsync times.
+    private volatile long mDirtyNanos;
+    private volatile PerformanceHud mHud;
+    private RenderThread mRenderThread;
+
+    private volatile long mFrameCount;
+    private volatile long mDroppedFrameCount;
+    private volatile long mLastFrameTimeNanos;
+    private volatile long mMaxFrameTimeNanos;
+
+    public TextureGraphicOverlay(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        setOpaque(false);
+        setSurfaceTextureListener(this);
+
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        float refreshRate = windowManager.getDefaultDisplay().getRefreshRate();
+        if (refreshRate < 1.0f) {
+            refreshRate = 60.0f;
+        }
+        mFramePeriodNanos = (long) (1e9 / refreshRate);
+    }
+
+    @Override
+    public void clear() {
+        synchronized (mLock) {
+            mGraphics.clear();
+            mGeneration++;
+        }
+        postInvalidate();
+    }
+
+    @Override
+    public int getGeneration() {
+        return mGeneration;
+    }
+
+    @Override
+    public void add(int id, GraphicOverlay.Graphic graphic, boolean visible) {
+        synchronized (mLock) {
+            mGraphics.put(id, graphic, visible);
+        }
+        postInvalidate();
+    }
+
+    @Override
+    public void setVisible(int id, boolean visible) {
+        synchronized (mLock) {
+            mGraphics.setVisible(id, visible);
+        }
+        postInvalidate();
+    }
+
+    @Override
+    public void remove(int id) {
+        synchronized (mLock) {
+            mGraphics.remove(id);
+        }
+        postInvalidate();
+    }
+
+    @Override
+    public void setCameraInfo(int previewWidth, int previewHeight, int facing) {
+        synchronized (mLock) {
+            mPreviewWidth = previewWidth;
+            mPreviewHeight = previewHeight;
+            mFacing = facing;
+        }
+        postInvalidate();
+    }
+
+    @Override
+    public float getWidthScaleFactor() {
+        return mWidthScaleFactor;
+    }
+
+    @Override
+    public float getHeightScaleFactor() {
+        return mHeightScaleFactor;
+    }
+
+    @Override
+    public int getFacing() {
+        return mFacing;
+    }
+
+    /**
+     * Marks the overlay for redraw on the next vsync of the render thread.  Unlike
+     * {@link android.view.View#postInvalidate()}, this does not schedule a UI thread traversal.
+     */
+    @Override
+    public void postInvalidate() {
+        markDirty();
+    }
+
+    @Override
+    public void setHud(PerformanceHud hud) {
+        mHud = hud;
+        markDirty();
+    }
+
+    /**
+     * Returns the number of frames drawn since the surface was created.
+     */
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * Returns the number of vsyncs missed by the render thread, while a frame was pending, since
+     * the surface was created.
+     */
+    public long getDroppedFrameCount() {
+        return mDroppedFrameCount;
+    }
+
+    /**
+     * Returns the time taken to draw the last frame, in nanoseconds.
+     */
+    public long getLastFrameTimeNanos() {
+        return mLastFrameTimeNanos;
+    }
+
+    @Override
+    public void onSurfaceTextureAvailable(SurfaceTexture surfaceTexture, int width, int height) {
+        mFrameCount = 0;
+        mDroppedFrameCount = 0;
+        mMaxFrameTimeNanos = 0;
+        markDirty();
+        mRenderThread = new RenderThread(new Surface(surfaceTexture));
+        mRenderThread.start();
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(SurfaceTexture surfaceTexture, int width, int height) {
+        markDirty();
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(SurfaceTexture surfaceTexture) {
+        if (mRenderThread != null) {
+            mRenderThread.shutdown();
+            mRenderThread = null;
+        }
+        return true;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(SurfaceTexture surfaceTexture) {
+    }
+
+    private void markDirty() {
+        if (!mDirty) {
+            mDirtyNanos = System.nanoTime();
+            mDirty = true;
+        }
+    }
+
+    /**
+     * Draws the graphics into the surface once per vsync, when something changed.
+     */
+    private class RenderThread extends TrackedHandlerThread implements Choreographer.FrameCallback {
+        private final Surface mSurface;
+        private long mLastVsyncNanos;
+        private volatile boolean mRunning = true;
+
+        RenderThread(Surface surface) {
+            super(TAG);
+            mSurface = surface;
+        }
+
+        @Override
+        protected void onLooperPrepared() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        /**
+         * Stops the render thread and waits for it to finish, so that the surface is no longer
+         * drawn to once this returns.
+         */
+        void shutdown() {
+            mRunning = false;
+            quitSafely();
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            mSurface.release();
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!mRunning) {
+                return;
+            }
+
+            // Only vsyncs that went by while a frame was pending are dropped frames: with nothing
+            // to draw, a late callback costs nothing.
+            if (mDirty && mLastVsyncNanos != 0) {
+                // The first vsync after the frame was requested is when it should have been drawn.
+                long dueNanos = mLastVsyncNanos + mFramePeriodNanos;
+                long dirtyNanos = mDirtyNanos;
+                if (dirtyNanos > dueNanos) {
+                    dueNanos += ((dirtyNanos - dueNanos) / mFramePeriodNanos + 1)
+                            * mFramePeriodNanos;
+                }
+                long missed = (frameTimeNanos - dueNanos + mFramePeriodNanos / 2)
+                        / mFramePeriodNanos;
+                if (missed > 0) {
+                    mDroppedFrameCount += missed;
+                    AppMetrics.OVERLAY_DROPPED.add(missed);
+                }
+            }
+            mLastVsyncNanos = frameTimeNanos;
+
+            PerformanceHud hud = mHud;
+            if (mDirty || (hud != null && hud.isSampleDue(System.nanoTime()))) {
+                mDirty = false;
+                drawFrame(hud);
+            }
+
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        private void drawFrame(PerformanceHud hud) {
+            long start = System.nanoTime();
+            Canvas canvas;
+            try {
+                canvas = mSurface.lockCanvas(null);
+            } catch (IllegalArgumentException | Surface.OutOfResourcesException e) {
+                Log.e(TAG, "Could not lock overlay surface.", e);
+                return;
+            }
+
+            try {
+                canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+                synchronized (mLock) {
+                    if ((mPreviewWidth != 0) && (mPreviewHeight != 0)) {
+                        mWidthScaleFactor = (float) canvas.getWidth() / (float) mPreviewWidth;
+                        mHeightScaleFactor = (float) canvas.getHeight() / (float) mPreviewHeight;
+                    }
+
+                    for (int slot = 0; slot < mGraphics.getSlotCount(); slot++) {
+                        GraphicOverlay.Graphic graphic = mGraphics.getVisibleItem(slot);
+                        if (graphic != null) {
+                            graphic.draw(canvas);
+                        }
+                    }
+                }
+                if (hud != null) {
+                    hud.draw(canvas);
+                }
+            } finally {
+                mSurface.unlockCanvasAndPost(canvas);
+            }
+
+            long frameTime = System.nanoTime() - start;
+            mLastFrameTimeNanos = frameTime;
+            if (frameTime > mMaxFrameTimeNanos) {
+                mMaxFrameTimeNanos = frameTime;
+            }
+            mFrameCount++;
+            AppMetrics.OVERLAY_FRAMES.mark();
+            if (mFrameCount % REPORT_INTERVAL_FRAMES == 0) {
+                Log.d(TAG, "frames: " + mFrameCount + " dropped: " + mDroppedFrameCount
+                        + " last: " + frameTime / 1000 + "us max: " + mMaxFrameTimeNanos / 1000 + "us");
+                mMaxFrameTimeNanos = 0;
+            }
+        }
+    }
+}
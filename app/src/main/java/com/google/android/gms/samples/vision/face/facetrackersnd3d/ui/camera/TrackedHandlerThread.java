@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.ui.camera;
+
+import android.os.HandlerThread;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.lifecycle.ResourceTracker;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.lifecycle.TrackedThread;
+
+/**
+ * {@link HandlerThread} counted by the default {@link ResourceTracker} while it runs, like a
+ * {@link TrackedThread}.
+ */
+public class TrackedHandlerThread extends HandlerThread {
+    public TrackedHandlerThread(String name) {
+        super(name);
+    }
+
+    @Override
+    public void run() {
+        ResourceTracker tracker = ResourceTracker.getDefault();
+        tracker.onThreadStarted();
+        try {
+            super.run();
+        } finally {
+            tracker.onThreadStopped();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.util;
+
+import java.util.Arrays;
+
+/**
+ * Map from int to int with open addressing, for per-frame bookkeeping keyed by track or cluster
+ * id without boxing.  Does not allocate once grown to its working size.  Not thread safe.
+ */
+public final class IntIntMap {
+    private static final float MAX_LOAD = 0.5f;
+
+    private int[] mKeys;
+    private int[] mValues;
+    private boolean[] mUsed;
+    private int mMask;
+    private int mSize;
+
+    public IntIntMap() {
+        this(16);
+    }
+
+    public IntIntMap(int initialCapacity) {
+        int capacity = 8;
+        while (capacity * MAX_LOAD < initialCapacity) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns the value for {@code key}, or {@code defaultValue} if there is none.
+     */
+    public int get(int key, int defaultValue) {
+        int index = findIndex(key);
+        return index < 0 ? defaultValue : mValues[index];
+    }
+
+    public boolean containsKey(int key) {
+        return findIndex(key) >= 0;
+    }
+
+    public void put(int key, int value) {
+        int index = findIndex(key);
+        if (index >= 0) {
+            mValues[index] = value;
+            return;
+        }
+        if (mSize + 1 > mKeys.length * MAX_LOAD) {
+            rehash(mKeys.length * 2);
+        }
+        insert(key, value);
+        mSize++;
+    }
+
+    /**
+     * Removes {@code key}.
+     *
+     * @return true if the key was present
+     */
+    public boolean remove(int key) {
+        int hole = findIndex(key);
+        if (hole < 0) {
+            return false;
+        }
+        // Shift back the rest of the probe sequence so that no tombstones are needed.
+        for (int i = (hole + 1) & mMask; mUsed[i]; i = (i + 1) & mMask) {
+            int home = hash(mKeys[i]) & mMask;
+            boolean homeBetween = hole <= i ? (home > hole && home <= i) : (home > hole || home <= i);
+            if (!homeBetween) {
+                mKeys[hole] = mKeys[i];
+                mValues[hole] = mValues[i];
+                mUsed[hole] = true;
+                mUsed[i] = false;
+                hole = i;
+            }
+        }
+        mUsed[hole] = false;
+        mSize--;
+        return true;
+    }
+
+    public void clear() {
+        if (mSize > 0) {
+            Arrays.fill(mUsed, false);
+            mSize = 0;
+        }
+    }
+
+    private int findIndex(int key) {
+        for (int i = hash(key) & mMask; mUsed[i]; i = (i + 1) & mMask) {
+            if (mKeys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int key, int value) {
+        int i = hash(key) & mMask;
+        while (mUsed[i]) {
+            i = (i + 1) & mMask;
+        }
+        mKeys[i] = key;
+        mValues[i] = value;
+        mUsed[i] = true;
+    }
+
+    private void rehash(int capacity) {
+        int[] keys = mKeys;
+        int[] values = mValues;
+        boolean[] used = mUsed;
+        allocate(capacity);
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                insert(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new int[capacity];
+        mValues = new int[capacity];
+        mUsed = new boolean[capacity];
+        mMask = capacity - 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.audio;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CrowdClustererTest {
+    // 100 pixel cells for the 40 pixel wide faces used below.
+    private final CrowdClusterer mClusterer = new CrowdClusterer(2.5f);
+
+    @Before
+    public void setUp() {
+        mClusterer.setFrameSize(480, 640);
+    }
+
+    @Test
+    public void mergesFacesAcrossACellBorder() {
+        mClusterer.begin();
+        mClusterer.addFace(1, 99.5f, 50.0f, 40.0f);
+        mClusterer.addFace(2, 100.5f, 50.0f, 40.0f);
+        mClusterer.cluster();
+
+        assertEquals(1, mClusterer.getClusterCount());
+        assertEquals(2, mClusterer.getClusterSize(0));
+        assertEquals(100.0f, mClusterer.getClusterCenterX(0), 1e-3f);
+    }
+
+    @Test
+    public void mergesDiagonalCells() {
+        mClusterer.begin();
+        mClusterer.addFace(1, 50.0f, 50.0f, 40.0f);
+        // Touches the first cell diagonally.
+        mClusterer.addFace(2, 150.0f, 150.0f, 40.0f);
+        mClusterer.cluster();
+
+        assertEquals(1, mClusterer.getClusterCount());
+        assertEquals(2, mClusterer.getClusterSize(0));
+    }
+
+    @Test
+    public void splitsChainsLongerThanTheMaximumExtent() {
+        mClusterer.begin();
+        // A row of five touching cells.
+        for (int i = 0; i < 5; i++) {
+            mClusterer.addFace(i, 50.0f + 100.0f * i, 50.0f, 40.0f);
+        }
+        mClusterer.cluster();
+
+        // Two cells at most per cluster.
+        assertEquals(3, mClusterer.getClusterCount());
+        assertEquals(2, mClusterer.getClusterSize(0));
+        assertEquals(2, mClusterer.getClusterSize(1));
+        assertEquals(1, mClusterer.getClusterSize(2));
+    }
+
+    @Test
+    public void sizesCellsFromTheFaceWidth() {
+        mClusterer.begin();
+        // 60 pixels apart: in touching cells for 40 pixel faces, not for 10 pixel faces.
+        mClusterer.addFace(1, 50.0f, 50.0f, 40.0f);
+        mClusterer.addFace(2, 110.0f, 50.0f, 40.0f);
+        mClusterer.cluster();
+        assertEquals(1, mClusterer.getClusterCount());
+
+        mClusterer.begin();
+        mClusterer.addFace(1, 50.0f, 50.0f, 10.0f);
+        mClusterer.addFace(2, 110.0f, 50.0f, 10.0f);
+        mClusterer.cluster();
+        assertEquals(2, mClusterer.getClusterCount());
+    }
+
+    @Test
+    public void keepsDistantFacesApartWithStableIds() {
+        mClusterer.begin();
+        mClusterer.addFace(1, 50.0f, 50.0f, 40.0f);
+        mClusterer.addFace(2, 350.0f, 550.0f, 40.0f);
+        mClusterer.cluster();
+        assertEquals(2, mClusterer.getClusterCount());
+        int first = mClusterer.getClusterId(0);
+        int second = mClusterer.getClusterId(1);
+
+        // Same faces, added in the other order.
+        mClusterer.begin();
+        mClusterer.addFace(2, 352.0f, 548.0f, 40.0f);
+        mClusterer.addFace(1, 52.0f, 50.0f, 40.0f);
+        mClusterer.cluster();
+        assertEquals(2, mClusterer.getClusterCount());
+        assertEquals(second, mClusterer.getClusterId(0));
+        assertEquals(first, mClusterer.getClusterId(1));
+    }
+}
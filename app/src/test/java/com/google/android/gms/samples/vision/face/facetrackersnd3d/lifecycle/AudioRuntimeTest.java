@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.lifecycle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.AudioEngine;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CrowdCuePlayer;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.RecordingAudioEngine;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.sensor.HeadRotationFusion;
+
+import org.junit.Test;
+
+public class AudioRuntimeTest {
+    private static final long TIMEOUT_MILLIS = 1000;
+
+    // Our own tracker, so that threads of other tests do not count.
+    private final ResourceTracker mTracker = new ResourceTracker();
+    private final RecordingAudioEngine mEngine = new RecordingAudioEngine(0, 1000);
+    private int mEnginesCreated;
+    private int mEnginesReleased;
+
+    private final AudioRuntime.EngineHost mHost = new AudioRuntime.EngineHost() {
+        @Override
+        public AudioEngine createEngine() {
+            mEnginesCreated++;
+            return mEngine;
+        }
+
+        @Override
+        public boolean needsUpdate() {
+            return true;
+        }
+
+        @Override
+        public void onPreloadFailed(String soundFile) {
+        }
+
+        @Override
+        public void releaseEngine() {
+            mEnginesReleased++;
+        }
+    };
+
+    @Test
+    public void pauseResumeKeepsOneEngineAndShutdownDropsIt() throws InterruptedException {
+        // Started once, like the retained fragment does on the first launch.
+        AudioRuntime runtime = new AudioRuntime(mHost, new HeadRotationFusion(0.5f), "cue.wav",
+                1.0f, mTracker);
+        runtime.start();
+        runtime.resume();
+        waitForLiveThreads(1);
+        assertEquals(1, mTracker.getHeldEngineCount());
+        playCrowdVoice(runtime.getCrowdCuePlayer());
+
+        // A configuration change only pauses and resumes the retained runtime, which is handed to
+        // the new activity as is.  The fragment side is not covered here.
+        for (int i = 0; i < 3; i++) {
+            runtime.pause();
+            runtime.resume();
+        }
+        assertEquals(1, mEnginesCreated);
+        assertEquals(1, mTracker.getLiveThreadCount());
+        assertEquals(1, mTracker.getHeldEngineCount());
+
+        // Shut down, like the retained fragment does once the activity finished.
+        runtime.pause();
+        assertTrue(runtime.shutdown(TIMEOUT_MILLIS));
+        assertEquals(0, mTracker.getLiveThreadCount());
+        assertEquals(0, mTracker.getHeldEngineCount());
+        assertEquals(1, mEnginesReleased);
+        assertEquals(0, mEngine.getLiveSoundObjects());
+        assertNull(runtime.getAudioEngine());
+        assertNull(runtime.getCrowdCuePlayer());
+        assertEquals(1, mEngine.getCallCount(RecordingAudioEngine.Call.PRELOAD_SOUND_FILE));
+    }
+
+    private static void playCrowdVoice(CrowdCuePlayer player) {
+        player.setFrameSize(480, 640);
+        player.begin();
+        for (int i = 0; i < CrowdCuePlayer.ENTER_FACE_COUNT; i++) {
+            player.addFace(i, 100.0f + 10.0f * i, 100.0f, 60.0f);
+        }
+        player.endFrame(0);
+        assertEquals(1, player.getVoiceCount());
+    }
+
+    private void waitForLiveThreads(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (mTracker.getLiveThreadCount() != count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, mTracker.getLiveThreadCount());
+    }
+}
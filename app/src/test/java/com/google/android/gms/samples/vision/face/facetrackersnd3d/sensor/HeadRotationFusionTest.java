@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.sensor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays a rotation vector trace of a 90 degree turn to the left through
+ * {@link HeadRotationFusion}.
+ */
+public class HeadRotationFusionTest {
+    private static final String TRACE = "rotation_vector_turn_left.txt";
+    private static final float TIME_CONSTANT_SECONDS = 0.05f;
+    private static final double ANGLE_TOLERANCE_DEGREES = 1.0;
+
+    private final List<Long> mTimestamps = new ArrayList<>();
+    private final List<float[]> mSamples = new ArrayList<>();
+
+    @Before
+    public void loadTrace() throws IOException {
+        InputStream in = getClass().getResourceAsStream(TRACE);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#") || line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.trim().split("\\s+");
+                mTimestamps.add(Long.parseLong(fields[0]));
+                mSamples.add(new float[] {Float.parseFloat(fields[1]),
+                        Float.parseFloat(fields[2]), Float.parseFloat(fields[3]),
+                        Float.parseFloat(fields[4])});
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void headIsIdentityWhileThePhoneHoldsItsReferenceHeading() {
+        HeadRotationFusion fusion = new HeadRotationFusion(TIME_CONSTANT_SECONDS);
+        // The turn starts after 0.5 s.
+        replay(fusion, 0, 45);
+
+        float[] head = new float[4];
+        assertTrue(fusion.pollHeadRotation(head));
+        assertEquals(0.0, angleDegrees(head), ANGLE_TOLERANCE_DEGREES);
+        assertFalse(fusion.pollHeadRotation(head));
+    }
+
+    @Test
+    public void turningThePhoneLeftTurnsTheHeadRightAboutTheVertical() {
+        HeadRotationFusion fusion = new HeadRotationFusion(TIME_CONSTANT_SECONDS);
+        replay(fusion, 0, mSamples.size());
+
+        float[] head = new float[4];
+        fusion.pollHeadRotation(head);
+        assertEquals(90.0, angleDegrees(head), ANGLE_TOLERANCE_DEGREES);
+
+        // The vertical, in the device frame of the reference sample: mostly the device y axis
+        // since the phone is held upright.
+        double[] vertical = rotateByConjugate(mSamples.get(0), 0.0, 0.0, 1.0);
+        assertTrue(vertical[1] > 0.9);
+
+        // Relative to the phone the head turned the other way: a negative rotation about the
+        // vertical.
+        double sinHalf = Math.sqrt(head[0] * head[0] + head[1] * head[1] + head[2] * head[2]);
+        double sign = Math.signum(head[3]);
+        double dot = sign * (head[0] * vertical[0] + head[1] * vertical[1]
+                + head[2] * vertical[2]) / sinHalf;
+        assertEquals(-1.0, dot, 0.01);
+    }
+
+    @Test
+    public void recenterMakesTheCurrentHeadingTheReference() {
+        HeadRotationFusion fusion = new HeadRotationFusion(TIME_CONSTANT_SECONDS);
+        replay(fusion, 0, mSamples.size() - 1);
+
+        fusion.recenter();
+        replay(fusion, mSamples.size() - 1, mSamples.size());
+
+        float[] head = new float[4];
+        fusion.pollHeadRotation(head);
+        assertEquals(0.0, angleDegrees(head), ANGLE_TOLERANCE_DEGREES);
+    }
+
+    private void replay(HeadRotationFusion fusion, int from, int to) {
+        for (int i = from; i < to; i++) {
+            fusion.onRotationVector(mTimestamps.get(i), mSamples.get(i));
+        }
+    }
+
+    private static double angleDegrees(float[] q) {
+        return Math.toDegrees(2.0 * Math.acos(Math.min(1.0, Math.abs(q[3]))));
+    }
+
+    /**
+     * Rotates a vector by the conjugate of the quaternion {@code q}, (x, y, z, w).
+     */
+    private static double[] rotateByConjugate(float[] q, double x, double y, double z) {
+        // v' = v + 2 u x (u x v + w v), with u = -q.xyz
+        double ux = -q[0];
+        double uy = -q[1];
+        double uz = -q[2];
+        double w = q[3];
+        double cx = uy * z - uz * y + w * x;
+        double cy = uz * x - ux * z + w * y;
+        double cz = ux * y - uy * x + w * z;
+        return new double[] {
+                x + 2.0 * (uy * cz - uz * cy),
+                y + 2.0 * (uz * cx - ux * cz),
+                z + 2.0 * (ux * cy - uy * cx),
+        };
+    }
+}
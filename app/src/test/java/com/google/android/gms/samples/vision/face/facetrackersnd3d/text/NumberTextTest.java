@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.text;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class NumberTextTest {
+    private final char[] mText = new char[NumberText.MAX_FIXED2_LENGTH];
+
+    @Test
+    public void formatsProbabilitiesLikeStringFormat() {
+        assertEquals("0.00", fixed2(0.0f));
+        assertEquals("0.50", fixed2(0.5f));
+        assertEquals("1.00", fixed2(0.999f));
+        assertEquals("-1.00", fixed2(-1.0f));
+        assertEquals("0.00", fixed2(-0.001f));
+        assertEquals("-", fixed2(Float.NaN));
+    }
+
+    @Test
+    public void clampsLargeValuesToTheBuffer() {
+        assertEquals("2147483647.00", fixed2(1e20f));
+        assertEquals("-2147483647.00", fixed2(-Float.MAX_VALUE));
+        assertEquals("2147483647.00", fixed2(Float.POSITIVE_INFINITY));
+        assertEquals("-2147483647.00", fixed2(Float.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    public void formatsIntsIncludingTheExtremes() {
+        assertEquals("-2147483648", integer(Integer.MIN_VALUE));
+        assertEquals("0", integer(0));
+        assertEquals("42", integer(42));
+    }
+
+    private String fixed2(float value) {
+        return new String(mText, 0, NumberText.formatFixed2(value, mText, 0));
+    }
+
+    private String integer(int value) {
+        return new String(mText, 0, NumberText.formatInt(value, mText, 0));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LoadSimulatorTest {
+    // Audio engine calls per second and per face the trackers may make, on top of the engine
+    // update made once per frame.
+    private static final double AUDIO_CALLS_PER_FACE_SECOND = 25.0;
+
+    @Test
+    public void oneFace() {
+        check(run(1));
+    }
+
+    @Test
+    public void tenFaces() {
+        check(run(10));
+    }
+
+    @Test
+    public void hundredFaces() {
+        check(run(100));
+    }
+
+    @Test
+    public void crowdModeReplacesPerFaceCues() {
+        LoadSimulator.Report report = run(100);
+        String message = report.toString();
+        assertEquals(message, report.frames, report.crowdFrames);
+        // Grouped cues only: a few voices, not one per face, and not a single one either.
+        assertTrue(message, report.peakSoundObjects > 1);
+        assertTrue(message, report.peakSoundObjects < report.faceCount / 5);
+    }
+
+    @Test
+    public void motionGatingCutsEngineCalls() {
+        for (int faceCount : new int[] {10, 100}) {
+            for (float stillFraction : new float[] {0.0f, 1.0f}) {
+                LoadSimulator.Report gated = runPerFace(faceCount, stillFraction, true);
+                LoadSimulator.Report ungated = runPerFace(faceCount, stillFraction, false);
+                assertTrue(gated + "" + ungated, gated.getAudioCallsPerSecond()
+                        < ungated.getAudioCallsPerSecond());
+            }
+        }
+    }
+
+    private static LoadSimulator.Report runPerFace(int faceCount, float stillFraction,
+                                                   boolean motionGating) {
+        return new LoadSimulator.Builder()
+                .setFaceCount(faceCount)
+                .setFps(30)
+                .setFrameCount(300)
+                .setStillFraction(stillFraction)
+                .setMotionGating(motionGating)
+                .setCrowdMode(false)
+                .build()
+                .run();
+    }
+
+    private static LoadSimulator.Report run(int faceCount) {
+        return new LoadSimulator.Builder()
+                .setFaceCount(faceCount)
+                .setFps(30)
+                .setFrameCount(300)
+                .build()
+                .run();
+    }
+
+    private static void check(LoadSimulator.Report report) {
+        String message = report.toString();
+        assertTrue(message, report.soundObjectsCreated > 0);
+        assertTrue(message, report.peakSoundObjects <= 2 * report.faceCount);
+        assertEquals(message, 0, report.liveSoundObjects);
+        assertEquals(message, 0, report.activeTrackers);
+        assertTrue(message, report.getAudioCallsPerSecond()
+                <= report.fps + AUDIO_CALLS_PER_FACE_SECOND * report.faceCount);
+    }
+}
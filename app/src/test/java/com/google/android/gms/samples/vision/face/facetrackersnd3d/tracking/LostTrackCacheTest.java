@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LostTrackCacheTest {
+    private static final int CAPACITY = 16;
+    private static final long MAX_AGE_MILLIS = 1500;
+
+    private final List<String> mEvicted = new ArrayList<>();
+    private final LostTrackCache<String> mCache = new LostTrackCache<>(CAPACITY,
+            MAX_AGE_MILLIS, 100.0f, new LostTrackCache.EvictionListener<String>() {
+                @Override
+                public void onEvicted(String item) {
+                    mEvicted.add(item);
+                }
+            });
+
+    @Test
+    public void takenTracksFreeTheirSlots() {
+        mCache.put(face(50), 0, 0, 0, "waiting");
+        // 15 later tracks, each taken back right away.
+        for (int i = 1; i < CAPACITY; i++) {
+            mCache.put(face(200 + 100 * i), 0, 0, i, "taken" + i);
+            assertEquals("taken" + i, mCache.take(face(200 + 100 * i), i));
+        }
+        assertEquals(1, mCache.size());
+
+        mCache.put(face(3000), 0, 0, CAPACITY, "new");
+        assertTrue(mEvicted.isEmpty());
+        assertEquals(2, mCache.size());
+        assertEquals("waiting", mCache.take(face(50), CAPACITY));
+        assertEquals("new", mCache.take(face(3000), CAPACITY));
+    }
+
+    @Test
+    public void fullCacheEvictsTheOldestTrack() {
+        for (int i = 0; i < CAPACITY; i++) {
+            mCache.put(face(100 * i), 0, 0, i, "track" + i);
+        }
+        // Take one from the middle, then fill the cache up again.
+        assertEquals("track5", mCache.take(face(500), CAPACITY));
+        mCache.put(face(5000), 0, 0, CAPACITY, "refill");
+        assertTrue(mEvicted.isEmpty());
+
+        mCache.put(face(6000), 0, 0, CAPACITY, "overflow");
+        assertEquals(1, mEvicted.size());
+        assertEquals("track0", mEvicted.get(0));
+        assertEquals(CAPACITY, mCache.size());
+        assertNull(mCache.take(face(0), CAPACITY));
+    }
+
+    @Test
+    public void expiredTracksAreEvicted() {
+        mCache.put(face(50), 0, 0, 0, "old");
+        mCache.put(face(500), 0, 0, 1000, "recent");
+
+        assertNull(mCache.take(face(50), MAX_AGE_MILLIS + 1));
+        assertEquals(1, mEvicted.size());
+        assertEquals("old", mEvicted.get(0));
+        assertEquals("recent", mCache.take(face(500), MAX_AGE_MILLIS + 1));
+    }
+
+    private static FaceObservation face(float x) {
+        FaceObservation face = new FaceObservation();
+        face.x = x;
+        face.y = 100.0f;
+        face.width = 60.0f;
+        face.height = 72.0f;
+        face.smilingProbability = 0.5f;
+        face.leftEyeOpenProbability = 0.9f;
+        face.rightEyeOpenProbability = 0.9f;
+        return face;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.benchmark;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.analytics.AnalyticsBatch;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.analytics.AnalyticsStore;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.analytics.BinaryAnalyticsStore;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.analytics.SessionAnalytics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the analytics recording path under a storm of tracker events, far above what
+ * the detector produces, with the writer thread persisting batches concurrently.  The simulated
+ * clock hands a batch to the writer every {@code eventsPerBatch} events.<p>
+ *
+ * With {@code slow} the store takes a millisecond per batch, so that the writer falls behind
+ * and batches are coalesced: recording throughput should not drop, and memory stays bounded.
+ * The trial summary prints batches written and coalesced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnalyticsEventStormBenchmark {
+    private static final long BATCH_INTERVAL_MILLIS = 10;
+
+    @Param({"binary", "slow"})
+    public String store;
+
+    @Param({"100", "10000"})
+    public int eventsPerBatch;
+
+    private File mFile;
+    private SessionAnalytics mAnalytics;
+    private long mEvents;
+
+    @Setup
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("analytics", ".bin");
+        mFile.delete();
+        AnalyticsStore binary = new BinaryAnalyticsStore(mFile);
+        mAnalytics = new SessionAnalytics("slow".equals(store) ? new SlowStore(binary) : binary,
+                BATCH_INTERVAL_MILLIS, 0);
+        mAnalytics.start();
+        mEvents = 0;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        mAnalytics.close(10000);
+        int batches = mFile.exists() ? BinaryAnalyticsStore.read(mFile).size() : 0;
+        System.out.println("events: " + mEvents + " batches written: "
+                + mAnalytics.getBatchesWritten() + " read back: " + batches
+                + " coalesced: " + mAnalytics.getCoalescedBatches()
+                + " errors: " + mAnalytics.getWriteErrors());
+        mFile.delete();
+    }
+
+    @Benchmark
+    public void storm() {
+        long event = mEvents++;
+        long now = event * BATCH_INTERVAL_MILLIS / eventsPerBatch;
+        switch ((int) (event & 3)) {
+            case 0:
+                mAnalytics.onTrackStarted(now);
+                break;
+            case 3:
+                mAnalytics.onTrackEnded(event & 4095, now);
+                break;
+            default:
+                mAnalytics.onCuePlayed((event & 0xffff) * 1000, now);
+                break;
+        }
+    }
+
+    /**
+     * Store taking a millisecond per batch, like a slow flash device.
+     */
+    private static final class SlowStore implements AnalyticsStore {
+        private final AnalyticsStore mDelegate;
+
+        SlowStore(AnalyticsStore delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public void write(AnalyticsBatch batch) throws IOException {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            mDelegate.write(batch);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            mDelegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            mDelegate.close();
+        }
+    }
+}
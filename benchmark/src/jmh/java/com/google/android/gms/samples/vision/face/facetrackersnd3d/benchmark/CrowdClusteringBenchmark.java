@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.benchmark;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CrowdClusterer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of clustering one frame of faces for crowd mode, including the matching of clusters with
+ * those of the previous frame.  Should grow linearly with the number of faces.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CrowdClusteringBenchmark {
+    @Param({"1", "5", "20", "100"})
+    public int faces;
+
+    private SyntheticFaceStream mStream;
+    private final CrowdClusterer mClusterer = new CrowdClusterer(160.0f);
+
+    @Setup
+    public void setUp() {
+        mStream = new SyntheticFaceStream(faces, 42);
+        mClusterer.setFrameSize(SyntheticFaceStream.PREVIEW_WIDTH,
+                SyntheticFaceStream.PREVIEW_HEIGHT);
+    }
+
+    @Benchmark
+    public int cluster() {
+        SyntheticFaceStream stream = mStream;
+        stream.advance();
+        mClusterer.begin();
+        for (int i = 0; i < stream.count; i++) {
+            mClusterer.addFace(stream.id[i], stream.x[i] + stream.width[i] / 2,
+                    stream.y[i] + stream.height[i] / 2, stream.width[i]);
+        }
+        mClusterer.cluster();
+        return mClusterer.getClusterCount();
+    }
+}
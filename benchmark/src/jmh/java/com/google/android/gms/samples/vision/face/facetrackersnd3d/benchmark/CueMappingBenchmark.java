@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.benchmark;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.FaceCue;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.FaceCueMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping one frame worth of faces to audio cues (position and orientation gain), as
+ * done by the face trackers on every update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CueMappingBenchmark {
+    @Param({"1", "5", "20", "100"})
+    public int faces;
+
+    private SyntheticFaceStream mStream;
+    private FaceCueMapper mMapper;
+    private FaceCue[] mCues;
+
+    @Setup
+    public void setUp() {
+        mStream = new SyntheticFaceStream(faces, 42);
+        mMapper = new FaceCueMapper();
+        mCues = new FaceCue[faces];
+        for (int i = 0; i < faces; i++) {
+            mCues[i] = new FaceCue();
+        }
+    }
+
+    @Benchmark
+    public void mapFrame(Blackhole blackhole) {
+        SyntheticFaceStream s = mStream;
+        s.advance();
+        for (int i = 0; i < s.count; i++) {
+            mMapper.map(s.x[i], s.y[i], s.width[i], s.eulerY[i], s.eulerZ[i], s.timeMillis, mCues[i]);
+            blackhole.consume(mCues[i].getGain());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.benchmark;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.audio.CueRateLimiter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the cue rate limiting check the trackers run on every face update, for one frame.
+ * Also returns how many cues got through, which shows how the shared limiter starves faces as
+ * their number grows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CueRateLimiterBenchmark {
+    @Param({"1", "5", "20", "100"})
+    public int faces;
+
+    private SyntheticFaceStream mStream;
+    private CueRateLimiter mLimiter;
+
+    @Setup
+    public void setUp() {
+        mStream = new SyntheticFaceStream(faces, 42);
+        mLimiter = new CueRateLimiter(250, 0);
+    }
+
+    @Benchmark
+    public int limitFrame() {
+        SyntheticFaceStream s = mStream;
+        s.advance();
+        int cues = 0;
+        for (int i = 0; i < s.count; i++) {
+            if (mLimiter.tryAcquire(s.timeMillis)) {
+                cues++;
+            }
+        }
+        return cues;
+    }
+}
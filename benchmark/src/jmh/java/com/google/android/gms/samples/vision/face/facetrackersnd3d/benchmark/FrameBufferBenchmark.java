@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.benchmark;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.frame.FrameBuffer;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.frame.FrameBufferPool;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.frame.LatestFrameExchange;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of getting a 640x480 NV21 camera frame to the detector: copying it into a pooled direct
+ * buffer handed over through the {@link LatestFrameExchange}, versus copying it into a direct
+ * buffer allocated for the frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameBufferBenchmark {
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    private final FrameBufferPool mPool = new FrameBufferPool(3, WIDTH, HEIGHT);
+    private final LatestFrameExchange mExchange = new LatestFrameExchange();
+    private byte[] mCameraData;
+    private int mFrameId;
+
+    @Setup
+    public void setUp() {
+        mCameraData = new byte[FrameBufferPool.nv21Size(WIDTH, HEIGHT)];
+        for (int i = 0; i < mCameraData.length; i++) {
+            mCameraData[i] = (byte) i;
+        }
+    }
+
+    @Benchmark
+    public int pooled() throws InterruptedException {
+        FrameBuffer frame = mPool.acquire();
+        frame.getData().put(mCameraData);
+        frame.getData().flip();
+        frame.setMetadata(WIDTH, HEIGHT, mFrameId++, System.nanoTime(), 0);
+        mExchange.offer(frame);
+
+        FrameBuffer taken = mExchange.take();
+        int value = taken.getData().get(0);
+        taken.release();
+        return value;
+    }
+
+    @Benchmark
+    public int allocating() {
+        ByteBuffer data = ByteBuffer.allocateDirect(mCameraData.length);
+        data.put(mCameraData);
+        data.flip();
+        return data.get(0);
+    }
+}
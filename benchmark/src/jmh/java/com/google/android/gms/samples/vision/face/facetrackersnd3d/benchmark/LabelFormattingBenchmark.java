@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.benchmark;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.text.NumberText;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of producing the four labels FaceGraphic draws per face, for one overlay frame: the
+ * original string concatenation with {@code String.format} against the allocation free
+ * {@link NumberText} path used with the glyph atlas.  The drawing itself needs a device, and is
+ * compared by the app's {@code GlyphAtlasDrawBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LabelFormattingBenchmark {
+    @Param({"1", "5", "10", "20"})
+    public int faces;
+
+    private SyntheticFaceStream mStream;
+    private final char[] mText = new char[NumberText.MAX_FIXED2_LENGTH];
+
+    @Setup
+    public void setUp() {
+        mStream = new SyntheticFaceStream(faces, 42);
+    }
+
+    @Benchmark
+    public void stringFormat(Blackhole blackhole) {
+        SyntheticFaceStream s = mStream;
+        s.advance();
+        for (int i = 0; i < s.count; i++) {
+            blackhole.consume("id: " + s.id[i]);
+            blackhole.consume("happiness: " + String.format("%.2f", s.smiling[i]));
+            blackhole.consume("right eye: " + String.format("%.2f", s.rightEyeOpen[i]));
+            blackhole.consume("left eye: " + String.format("%.2f", s.leftEyeOpen[i]));
+        }
+    }
+
+    @Benchmark
+    public void numberText(Blackhole blackhole) {
+        SyntheticFaceStream s = mStream;
+        s.advance();
+        for (int i = 0; i < s.count; i++) {
+            blackhole.consume(NumberText.formatInt(s.id[i], mText, 0));
+            blackhole.consume(NumberText.formatFixed2(s.smiling[i], mText, 0));
+            blackhole.consume(NumberText.formatFixed2(s.rightEyeOpen[i], mText, 0));
+            blackhole.consume(NumberText.formatFixed2(s.leftEyeOpen[i], mText, 0));
+        }
+        blackhole.consume(mText);
+    }
+}
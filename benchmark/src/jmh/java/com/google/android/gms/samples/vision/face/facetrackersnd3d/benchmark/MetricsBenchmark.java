@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.benchmark;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics.MetricsRegistry;
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.metrics.Rate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of marking a metric from several threads at once, as the camera, detector, audio and UI
+ * threads do, with the registry disabled and enabled.  {@link #atomicLong} is the single shared
+ * atomic the striped metrics avoid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class MetricsBenchmark {
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    private final MetricsRegistry mRegistry = new MetricsRegistry();
+    private final Rate mRate = mRegistry.rate("benchmark.rate");
+    private final AtomicLong mAtomicLong = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        mRegistry.setEnabled(enabled);
+    }
+
+    @Benchmark
+    public void rate() {
+        mRate.mark();
+    }
+
+    @Benchmark
+    public long atomicLong() {
+        return mAtomicLong.incrementAndGet();
+    }
+}
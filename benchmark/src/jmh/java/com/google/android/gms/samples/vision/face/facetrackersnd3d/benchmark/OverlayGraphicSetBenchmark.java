@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.benchmark;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking.TrackStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the overlay graphic bookkeeping for one frame, where one face in ten goes missing and
+ * comes back and one track in fifty ends and is replaced by a new one, followed by the
+ * iteration the overlay does to draw.<p>
+ *
+ * {@link #trackStore} makes the calls GraphicOverlay makes, under a lock like its own, on the
+ * {@link TrackStore} it keeps its graphics in: {@code put} when a tracker starts, {@code
+ * setVisible} when a face disappears or reappears, {@code remove} when a tracker ends, and the
+ * slot iteration of {@code onDraw}.  The overlay itself is an Android view and cannot run here.
+ * {@link #hashSet} is the baseline: the original GraphicOverlay, no longer in the app, where
+ * every tracker re-added its graphic to a locked HashSet on each update and removed it when
+ * missing or done.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OverlayGraphicSetBenchmark {
+    @Param({"1", "5", "20", "100"})
+    public int faces;
+
+    private final Object mLock = new Object();
+    private final Set<Object> mGraphics = new HashSet<>();
+    private final TrackStore<Object> mStore = new TrackStore<>();
+    // Track id and graphic of each face; a face gets a new track when its track ends.
+    private int[] mIds;
+    private Object[] mFaceGraphics;
+    private boolean[] mVisible;
+    private int mNextId;
+    private int mFrame;
+
+    @Setup
+    public void setUp() {
+        mIds = new int[faces];
+        mFaceGraphics = new Object[faces];
+        mVisible = new boolean[faces];
+        for (int i = 0; i < faces; i++) {
+            mIds[i] = mNextId++;
+            mFaceGraphics[i] = new Object();
+            mStore.put(mIds[i], mFaceGraphics[i], false);
+        }
+    }
+
+    @Benchmark
+    public void hashSet(Blackhole blackhole) {
+        mFrame++;
+        for (int i = 0; i < faces; i++) {
+            if (isTrackEnding(i)) {
+                synchronized (mLock) {
+                    mGraphics.remove(mFaceGraphics[i]);
+                }
+                mFaceGraphics[i] = new Object();
+            }
+            if (isMissing(i)) {
+                synchronized (mLock) {
+                    mGraphics.remove(mFaceGraphics[i]);
+                }
+            } else {
+                synchronized (mLock) {
+                    mGraphics.add(mFaceGraphics[i]);
+                }
+            }
+        }
+
+        synchronized (mLock) {
+            for (Object graphic : mGraphics) {
+                blackhole.consume(graphic);
+            }
+        }
+    }
+
+    @Benchmark
+    public void trackStore(Blackhole blackhole) {
+        mFrame++;
+        for (int i = 0; i < faces; i++) {
+            if (isTrackEnding(i)) {
+                synchronized (mLock) {
+                    mStore.remove(mIds[i]);
+                }
+                mIds[i] = mNextId++;
+                mFaceGraphics[i] = new Object();
+                mVisible[i] = false;
+                synchronized (mLock) {
+                    mStore.put(mIds[i], mFaceGraphics[i], false);
+                }
+            }
+            boolean visible = !isMissing(i);
+            if (visible != mVisible[i]) {
+                mVisible[i] = visible;
+                synchronized (mLock) {
+                    mStore.setVisible(mIds[i], visible);
+                }
+            }
+        }
+
+        synchronized (mLock) {
+            for (int slot = 0; slot < mStore.getSlotCount(); slot++) {
+                Object graphic = mStore.getVisibleItem(slot);
+                if (graphic != null) {
+                    blackhole.consume(graphic);
+                }
+            }
+        }
+    }
+
+    // One face in ten is missing on any given frame.
+    private boolean isMissing(int face) {
+        return (face + mFrame) % 10 == 0;
+    }
+
+    // One track in fifty ends on any given frame.
+    private boolean isTrackEnding(int face) {
+        return (face + mFrame) % 50 == 0;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministic stream of faces drifting across a 480x640 portrait preview, standing in for the
+ * detector output.  Faces bounce off the frame edges, slowly turn their heads and change their
+ * classification probabilities, so every frame carries fresh values.  Probabilities sweep back
+ * and forth between 0 and 1, as the detector never reports them outside that range.
+ */
+final class SyntheticFaceStream {
+    static final int PREVIEW_WIDTH = 480;
+    static final int PREVIEW_HEIGHT = 640;
+    static final long FRAME_INTERVAL_MILLIS = 33;
+
+    final int count;
+    final int[] id;
+    final float[] x;
+    final float[] y;
+    final float[] width;
+    final float[] height;
+    final float[] eulerY;
+    final float[] eulerZ;
+    final float[] smiling;
+    final float[] leftEyeOpen;
+    final float[] rightEyeOpen;
+
+    private final float[] mVelocityX;
+    private final float[] mVelocityY;
+    // Phases of the probability triangle waves, in [0, 2).
+    private final float[] mSmilingPhase;
+    private final float[] mLeftEyeOpenPhase;
+    private final float[] mRightEyeOpenPhase;
+    private final Random mRandom;
+    long timeMillis;
+
+    SyntheticFaceStream(int count, long seed) {
+        this.count = count;
+        id = new int[count];
+        x = new float[count];
+        y = new float[count];
+        width = new float[count];
+        height = new float[count];
+        eulerY = new float[count];
+        eulerZ = new float[count];
+        smiling = new float[count];
+        leftEyeOpen = new float[count];
+        rightEyeOpen = new float[count];
+        mVelocityX = new float[count];
+        mVelocityY = new float[count];
+        mSmilingPhase = new float[count];
+        mLeftEyeOpenPhase = new float[count];
+        mRightEyeOpenPhase = new float[count];
+        mRandom = new Random(seed);
+
+        for (int i = 0; i < count; i++) {
+            id[i] = i;
+            width[i] = 60.0f + mRandom.nextFloat() * 200.0f;
+            height[i] = width[i] * 1.2f;
+            x[i] = mRandom.nextFloat() * (PREVIEW_WIDTH - width[i]);
+            y[i] = mRandom.nextFloat() * (PREVIEW_HEIGHT - height[i]);
+            mVelocityX[i] = (mRandom.nextFloat() - 0.5f) * 10.0f;
+            mVelocityY[i] = (mRandom.nextFloat() - 0.5f) * 10.0f;
+            eulerY[i] = (mRandom.nextFloat() - 0.5f) * 120.0f;
+            eulerZ[i] = (mRandom.nextFloat() - 0.5f) * 60.0f;
+            mSmilingPhase[i] = mRandom.nextFloat() * 2.0f;
+            mLeftEyeOpenPhase[i] = mRandom.nextFloat() * 2.0f;
+            mRightEyeOpenPhase[i] = mRandom.nextFloat() * 2.0f;
+            smiling[i] = triangle(mSmilingPhase[i]);
+            leftEyeOpen[i] = triangle(mLeftEyeOpenPhase[i]);
+            rightEyeOpen[i] = triangle(mRightEyeOpenPhase[i]);
+        }
+    }
+
+    /**
+     * Moves every face by one frame.
+     */
+    void advance() {
+        timeMillis += FRAME_INTERVAL_MILLIS;
+        for (int i = 0; i < count; i++) {
+            x[i] += mVelocityX[i];
+            y[i] += mVelocityY[i];
+            if (x[i] < 0 || x[i] + width[i] > PREVIEW_WIDTH) {
+                mVelocityX[i] = -mVelocityX[i];
+            }
+            if (y[i] < 0 || y[i] + height[i] > PREVIEW_HEIGHT) {
+                mVelocityY[i] = -mVelocityY[i];
+            }
+            eulerY[i] = wrap(eulerY[i] + 1.5f, 60.0f);
+            eulerZ[i] = wrap(eulerZ[i] + 0.5f, 30.0f);
+            mSmilingPhase[i] = (mSmilingPhase[i] + 0.01f) % 2.0f;
+            mLeftEyeOpenPhase[i] = (mLeftEyeOpenPhase[i] + 0.02f) % 2.0f;
+            mRightEyeOpenPhase[i] = (mRightEyeOpenPhase[i] + 0.03f) % 2.0f;
+            smiling[i] = triangle(mSmilingPhase[i]);
+            leftEyeOpen[i] = triangle(mLeftEyeOpenPhase[i]);
+            rightEyeOpen[i] = triangle(mRightEyeOpenPhase[i]);
+        }
+    }
+
+    private static float wrap(float value, float limit) {
+        return value > limit ? value - 2.0f * limit : value;
+    }
+
+    /**
+     * Triangle wave rising from 0 to 1 over phases [0, 1] and falling back over [1, 2].
+     */
+    private static float triangle(float phase) {
+        return phase <= 1.0f ? phase : 2.0f - phase;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.gms.samples.vision.face.facetrackersnd3d.benchmark;
+
+import com.google.android.gms.samples.vision.face.facetrackersnd3d.tracking.LoadSimulator;
+
+/**
+ * Command line entry point for the headless load simulator.
+ *
+ * <pre>
+ *   LoadSimulation [faceCounts] [fps] [engineCallCostNanos] [stillFraction] [crowdMode]
+ * </pre>
+ *
+ * where {@code faceCounts} is a comma separated list of face counts to simulate in turn.  Each
+ * is simulated without then with motion gating, to compare the audio calls per second.  Crowd
+ * mode is on by default, as in the app; turn it off to measure the per-face cues alone.
+ */
+public final class LoadSimulation {
+    private LoadSimulation() {
+    }
+
+    public static void main(String[] args) {
+        String faceCounts = args.length > 0 ? args[0] : "1,10,50,100";
+        float fps = args.length > 1 ? Float.parseFloat(args[1]) : 30.0f;
+        long callCostNanos = args.length > 2 ? Long.parseLong(args[2]) : 2000;
+        float stillFraction = args.length > 3 ? Float.parseFloat(args[3]) : 0.5f;
+        boolean crowdMode = args.length <= 4 || Boolean.parseBoolean(args[4]);
+
+        for (String faceCount : faceCounts.split(",")) {
+            for (boolean motionGating : new boolean[] {false, true}) {
+                LoadSimulator.Report report = new LoadSimulator.Builder()
+                        .setFaceCount(Integer.parseInt(faceCount.trim()))
+                        .setFps(fps)
+                        .setEngineCallCostNanos(callCostNanos)
+                        .setStillFraction(stillFraction)
+                        .setMotionGating(motionGating)
+                        .setCrowdMode(crowdMode)
+                        .build()
+                        .run();
+                System.out.println(report);
+            }
+        }
+    }
+}